@@ -1,16 +1,28 @@
 package hello.core;
 
 import hello.core.discount.DiscountPolicy;
+import hello.core.discount.DiscountSettingsWatcher;
 import hello.core.discount.RateDiscountPolicy;
+import hello.core.item.ItemCatalog;
+import hello.core.member.AsyncMemberService;
+import hello.core.member.AsyncMemberServiceImpl;
 import hello.core.member.MemberRepository;
 import hello.core.member.MemberService;
 import hello.core.member.MemberServiceImpl;
-import hello.core.member.MemoryMemberRepository;
+import hello.core.member.ShardedMemberRepository;
+import hello.core.order.AsyncOrderService;
+import hello.core.order.AsyncOrderServiceImpl;
+import hello.core.order.DiscountSimulator;
 import hello.core.order.OrderService;
 import hello.core.order.OrderServiceImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * IoC (Inversion of Control)
  * 기존에는 클라이언트 구현체가 스스로 필요한 서버 구현 객체를 생성하고 연결하고 실행함.
@@ -23,6 +35,15 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 public class AppConfig {
+    // 회원 저장소를 나눌 샤드 수. member.shards로 바꿀 수 있고 기본값은 코어 수이다.
+    // 컨테이너 없이 new AppConfig()로 쓰면 주입되지 않으므로 같은 기본값으로 초기화해 둔다.
+    @Value("${member.shards:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int memberShardCount = Runtime.getRuntime().availableProcessors();
+
+    // 할인 설정 파일을 지켜보는 빈(CoreApplication). 컨테이너 없이 new AppConfig()로 쓰면 null이다.
+    @Autowired
+    private ObjectProvider<DiscountSettingsWatcher> discountSettingsWatcher;
+
     // 빈 이름은 무조건 다른 이름을 부여해야 한다. 이름이 같으면 충돌의 위험성이 있다.
     // xml을 사용해서 빈을 생성할 수도 있다. 그 이유는 BeanDefinition이라는 추상화가 있어서 가능함.
     // BeanDefinition을 통해 xml이든 자바 코드이든 상관없이 빈을 만들면 된다.
@@ -33,16 +54,47 @@ public class AppConfig {
 
     @Bean
     public MemberRepository memberRepository() {
-        return new MemoryMemberRepository();
+        return new ShardedMemberRepository(memberShardCount);
     }
 
     @Bean
     public OrderService orderService() {
-        return new OrderServiceImpl(memberRepository(), discountPolicy());
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository(), discountPolicy());
+        orderService.setItemCatalog(itemCatalog());
+        return orderService;
     }
 
+    @Bean
+    public ItemCatalog itemCatalog() {
+        return new ItemCatalog();
+    }
+
+    // 설정 파일을 지켜보는 빈이 있으면 그 설정을 읽어서 다시 읽은 설정이 바로 반영되고, 없으면 기본 설정(10%)을 쓴다.
     @Bean
     public DiscountPolicy discountPolicy() {
-        return new RateDiscountPolicy();
+        DiscountSettingsWatcher watcher = discountSettingsWatcher == null ? null : discountSettingsWatcher.getIfAvailable();
+        return watcher == null ? new RateDiscountPolicy() : new RateDiscountPolicy(watcher);
+    }
+
+    // 할인 정책을 바꾸기 전에 지난 주문으로 비교해 본다. 지금 주문에 쓰는 할인 정책이 기준이다.
+    @Bean
+    public DiscountSimulator discountSimulator() {
+        return new DiscountSimulator(memberRepository(), discountPolicy());
+    }
+
+    // 비동기 서비스가 블로킹 호출을 실행할 Executor. 컨테이너가 종료될 때 shutdown이 호출된다.
+    @Bean
+    public ExecutorService asyncExecutor() {
+        return AsyncExecutors.newDefaultExecutor();
+    }
+
+    @Bean
+    public AsyncMemberService asyncMemberService() {
+        return new AsyncMemberServiceImpl(memberService(), asyncExecutor());
+    }
+
+    @Bean
+    public AsyncOrderService asyncOrderService() {
+        return new AsyncOrderServiceImpl(orderService(), asyncExecutor());
     }
 }
@@ -0,0 +1,24 @@
+package hello.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 비동기 서비스가 기본으로 쓰는 Executor
+ *
+ * 요청마다 리포지토리 조회처럼 블로킹 작업을 하므로 작업마다 가상 쓰레드를 하나씩 쓰는 것이 기본이다.
+ * 빌드 대상은 Java 17이라 가상 쓰레드 API를 직접 부를 수 없어서, Java 21 이상에서 실행될 때만 리플렉션으로 사용한다.
+ * 그보다 낮은 버전에서는 필요할 때 쓰레드를 만들고 재사용하는 캐시 쓰레드 풀을 쓴다.
+ */
+public final class AsyncExecutors {
+    private AsyncExecutors() {
+    }
+
+    public static ExecutorService newDefaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
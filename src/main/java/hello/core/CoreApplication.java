@@ -1,7 +1,16 @@
 package hello.core;
 
+import hello.core.discount.DiscountSettingsWatcher;
+import hello.core.member.MemberService;
+import hello.core.order.OrderService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.nio.file.Path;
+import java.time.Duration;
 
 @SpringBootApplication
 public class CoreApplication {
@@ -10,4 +19,21 @@ public class CoreApplication {
         SpringApplication.run(CoreApplication.class, args);
     }
 
+    // order.intake.port를 설정했을 때만 주문 접수 서버를 띄운다.
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "order.intake.port")
+    public OrderIntakeServer orderIntakeServer(MemberService memberService, OrderService orderService,
+                                               @Value("${order.intake.port}") int port,
+                                               @Value("${order.intake.max-concurrent-requests:256}") int maxConcurrentRequests) {
+        return new OrderIntakeServer(memberService, orderService, port, maxConcurrentRequests);
+    }
+
+    // discount.settings.path를 설정했을 때만 할인 설정 파일을 지켜본다. 할인 정책은 이 빈이 있으면 여기서 설정을 읽는다.
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "discount.settings.path")
+    public DiscountSettingsWatcher discountSettingsWatcher(@Value("${discount.settings.path}") String path,
+                                                           @Value("${discount.settings.poll-interval-millis:1000}") long pollIntervalMillis) {
+        return new DiscountSettingsWatcher(Path.of(path), Duration.ofMillis(pollIntervalMillis));
+    }
+
 }
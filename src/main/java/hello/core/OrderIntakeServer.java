@@ -0,0 +1,256 @@
+package hello.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberService;
+import hello.core.order.IdempotencyKeyConflictException;
+import hello.core.order.MemberNotFoundException;
+import hello.core.order.Order;
+import hello.core.order.OrderRateLimitExceededException;
+import hello.core.order.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 외부에서 회원 가입과 주문을 받는 HTTP 서버 (JDK 내장 HttpServer)
+ *
+ * POST /members  id, name, grade
+ * POST /orders   memberId, itemName, itemPrice
+ * 파라미터는 쿼리 문자열이나 application/x-www-form-urlencoded 본문으로 받고, 결과는 JSON으로 돌려준다.
+ * 주문에 Idempotency-Key 헤더가 있으면 같은 회원이 같은 키로 다시 보낸 주문은 처음 주문을 돌려준다.
+ * 같은 키로 상품이나 가격이 다른 주문을 보내면 409로 거절한다.
+ *
+ * 요청은 쓰레드가 최대 maxConcurrentRequests개인 풀에서 처리한다. 풀에는 대기 큐가 없어서(SynchronousQueue)
+ * 쓰레드가 모두 바쁘면 요청을 넘기기 전에 거절되고, 거절된 요청은 HttpServer의 디스패처 쓰레드가 바로 503으로 응답한다. (load shedding)
+ * 그래서 요청이 몰려도 쓰레드 수는 maxConcurrentRequests를 넘지 않는다.
+ * 밀린 요청이 쌓여서 모든 요청이 느려지는 대신, 받은 요청은 제 시간에 끝내고 넘치는 요청은 클라이언트가 다시 시도하게 한다.
+ * 회원별 주문 한도를 넘은 주문은 429로 거절하고, Retry-After에 다시 시도할 수 있는 시각(초)을 알려준다.
+ */
+public class OrderIntakeServer {
+    private static final Logger log = LoggerFactory.getLogger(OrderIntakeServer.class);
+
+    // 풀이 거절한 요청을 디스패처 쓰레드에서 처리하는 동안만 true
+    private static final ThreadLocal<Boolean> SHEDDING = ThreadLocal.withInitial(() -> false);
+
+    private final MemberService memberService;
+    private final OrderService orderService;
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder shedCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+
+    public OrderIntakeServer(MemberService memberService, OrderService orderService, int port, int maxConcurrentRequests) {
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("maxConcurrentRequests는 0보다 커야 합니다.");
+        }
+
+        this.memberService = memberService;
+        this.orderService = orderService;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxConcurrentRequests, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-intake-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> {
+                    // 쓰레드를 더 만들지 않고 디스패처 쓰레드에서 503만 보낸다.
+                    SHEDDING.set(true);
+                    try {
+                        task.run();
+                    } finally {
+                        SHEDDING.remove();
+                    }
+                });
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.setExecutor(executor);
+        server.createContext("/members", exchange -> handle(exchange, this::join));
+        server.createContext("/orders", exchange -> handle(exchange, this::createOrder));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * 0번 포트로 만들었으면 실제로 열린 포트
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getShedCount() {
+        return shedCount.sum();
+    }
+
+    // 500으로 응답한 요청 수
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    private void handle(HttpExchange exchange, RequestHandler handler) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("POST만 지원합니다."));
+                return;
+            }
+            if (SHEDDING.get()) {
+                shedCount.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, error("요청이 많아서 처리할 수 없습니다."));
+                return;
+            }
+            try {
+                handler.handle(exchange, parameters(exchange));
+            } catch (MemberNotFoundException e) {
+                respond(exchange, 404, error(e.getMessage()));
+            } catch (IdempotencyKeyConflictException e) {
+                respond(exchange, 409, error(e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+            } catch (OrderRateLimitExceededException e) {
+                long retryAfterSeconds = Math.max(1, (e.getRetryAfterNanos() + 999_999_999) / 1_000_000_000);
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(retryAfterSeconds));
+                respond(exchange, 429, error(e.getMessage()));
+            } catch (RuntimeException e) {
+                // 그 밖의 오류도 응답 없이 연결을 끊지 않고 500으로 알려준다.
+                errorCount.increment();
+                log.error("요청을 처리하지 못했습니다. {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+                respond(exchange, 500, error("주문을 처리하지 못했습니다."));
+            }
+        }
+    }
+
+    private void join(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        Member member = new Member(
+                parseLong(parameters, "id"),
+                parameters.get("name"),
+                Grade.valueOf(required(parameters, "grade")));
+        memberService.join(member);
+        respond(exchange, 201, "{\"id\":" + member.getId()
+                + ",\"name\":" + quote(member.getName())
+                + ",\"grade\":\"" + member.getGrade() + "\"}");
+    }
+
+    private void createOrder(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        long memberId = parseLong(parameters, "memberId");
+        String itemName = required(parameters, "itemName");
+        int itemPrice = parseInt(parameters, "itemPrice");
+        if (itemPrice < 0) {
+            throw new IllegalArgumentException("itemPrice 파라미터는 0 이상이어야 합니다.");
+        }
+
+        String idempotencyKey = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        Order order = orderService.create(idempotencyKey, memberId, itemName, itemPrice);
+        respond(exchange, 201, "{\"memberId\":" + order.getMemberId()
+                + ",\"itemName\":" + quote(order.getItemName())
+                + ",\"itemPrice\":" + order.getItemPrice()
+                + ",\"discountPrice\":" + order.getDiscountPrice()
+                + ",\"price\":" + order.calculatePrice() + "}");
+    }
+
+    // 쿼리 문자열과 폼 본문의 파라미터를 합친다. 같은 이름이면 본문이 이긴다.
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        parse(exchange.getRequestURI().getRawQuery(), parameters);
+        parse(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), parameters);
+        return parameters;
+    }
+
+    private static void parse(String encoded, Map<String, String> parameters) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(name + " 파라미터가 필요합니다.");
+        }
+        return value;
+    }
+
+    private static long parseLong(Map<String, String> parameters, String name) {
+        try {
+            return Long.parseLong(required(parameters, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 파라미터는 숫자여야 합니다.");
+        }
+    }
+
+    private static int parseInt(Map<String, String> parameters, String name) {
+        try {
+            return Integer.parseInt(required(parameters, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 파라미터는 int 범위의 숫자여야 합니다.");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    @FunctionalInterface
+    private interface RequestHandler {
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+}
@@ -10,4 +10,13 @@ public interface DiscountPolicy {
      * @return 할인 대상 금액
      */
     int discount(Member member, int price);
+
+    /**
+     * 상품에 따라 할인이 다른 정책은 이 메서드를 다시 정의한다.
+     * @param itemName 모르면 null
+     * @return 할인 대상 금액
+     */
+    default int discount(Member member, String itemName, int price) {
+        return discount(member, price);
+    }
 }
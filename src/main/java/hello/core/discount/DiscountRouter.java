@@ -0,0 +1,129 @@
+package hello.core.discount;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 할인 코드로 할인 정책을 골라서 적용한다.
+ *
+ * AllBeanTest의 DiscountService처럼 Map<String, DiscountPolicy>로 모든 정책을 주입받지만,
+ * 시작할 때 코드(빈 이름)마다 0부터 번호를 붙여 두고 주문할 때는 번호로 배열에서 바로 꺼낸다.
+ * 코드 문자열은 codeOf로 한 번만 번호로 바꿔서 들고 다니면 된다.
+ *
+ * 정책 여러 개를 겹쳐서(stack) 적용할 수 있다. 앞 정책이 할인하고 남은 금액에 다음 정책을 적용하고,
+ * 할인 합계는 상품 가격을 넘지 않는다. 등급마다 기본으로 겹쳐 적용할 정책을 정해 둘 수도 있다.
+ */
+@Component
+public class DiscountRouter {
+    private static final Grade[] GRADES = Grade.values();
+    private static final int[] EMPTY = new int[0];
+
+    private final String[] codes;
+    private final DiscountPolicy[] policies;
+    private final Map<String, Integer> codeNumbers = new HashMap<>();
+    // 등급 순서(ordinal)로 찾는다. 바꿀 때는 배열을 새로 만들어서 통째로 바꾼다.
+    private volatile int[][] gradeStacks;
+
+    public DiscountRouter(Map<String, DiscountPolicy> policies) {
+        // 이름 순서로 번호를 붙여서 실행할 때마다 같은 번호가 나오게 한다.
+        Map<String, DiscountPolicy> sorted = new TreeMap<>(policies);
+        this.codes = sorted.keySet().toArray(new String[0]);
+        this.policies = sorted.values().toArray(new DiscountPolicy[0]);
+        for (int i = 0; i < codes.length; i++) {
+            codeNumbers.put(codes[i], i);
+        }
+        int[][] stacks = new int[GRADES.length][];
+        Arrays.fill(stacks, EMPTY);
+        this.gradeStacks = stacks;
+    }
+
+    /**
+     * @return 할인 코드의 번호
+     * @throws IllegalArgumentException 없는 코드
+     */
+    public int codeOf(String code) {
+        Integer number = codeNumbers.get(code);
+        if (number == null) {
+            throw new IllegalArgumentException("없는 할인 코드입니다. code = " + code);
+        }
+        return number;
+    }
+
+    /**
+     * 여러 코드를 한 번에 번호로 바꾼다. 결과를 그대로 discount에 넘기면 순서대로 겹쳐서 적용한다.
+     */
+    public int[] stackOf(String... codes) {
+        int[] stack = new int[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            stack[i] = codeOf(codes[i]);
+        }
+        return stack;
+    }
+
+    public String getCode(int code) {
+        return codes[code];
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public int discount(Member member, int price, int code) {
+        return policies[code].discount(member, price);
+    }
+
+    public int discount(Member member, String itemName, int price, int code) {
+        return policies[code].discount(member, itemName, price);
+    }
+
+    /**
+     * stack의 정책을 순서대로 겹쳐서 적용한다.
+     * @return 할인 합계
+     */
+    public int discount(Member member, String itemName, int price, int[] stack) {
+        int remaining = price;
+        for (int code : stack) {
+            if (remaining <= 0) {
+                break;
+            }
+            remaining -= Math.min(policies[code].discount(member, itemName, remaining), remaining);
+        }
+        return price - remaining;
+    }
+
+    /**
+     * 회원 등급에 정해 둔 정책들을 겹쳐서 적용한다. 정해 둔 정책이 없으면 할인하지 않는다.
+     */
+    public int discount(Member member, String itemName, int price) {
+        return discount(member, itemName, price, gradeStacks[member.getGrade().ordinal()]);
+    }
+
+    public void setGradeStack(Grade grade, String... codes) {
+        int[] stack = stackOf(codes);
+        synchronized (this) {
+            int[][] stacks = gradeStacks.clone();
+            stacks[grade.ordinal()] = stack;
+            gradeStacks = stacks;
+        }
+    }
+
+    /**
+     * @param stacks 등급별로 겹쳐 적용할 할인 코드. 없는 등급은 그대로 둔다.
+     */
+    public void setGradeStacks(Map<Grade, List<String>> stacks) {
+        for (Map.Entry<Grade, List<String>> entry : stacks.entrySet()) {
+            setGradeStack(entry.getKey(), entry.getValue().toArray(new String[0]));
+        }
+    }
+
+    public int[] getGradeStack(Grade grade) {
+        return gradeStacks[grade.ordinal()].clone();
+    }
+}
@@ -0,0 +1,83 @@
+package hello.core.discount;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * 할인 정책의 설정값. 만든 뒤에는 바뀌지 않는다.
+ * 설정을 바꿀 때는 새 객체를 만들어서 통째로 바꾸므로, 읽는 쪽은 항상 한 시점의 값들을 함께 본다.
+ *
+ * 파일은 properties 형식이고 없는 키는 기본값을 쓴다.
+ * <pre>
+ * discount.fix-amount=1000
+ * discount.rate-percent=10
+ * </pre>
+ */
+public final class DiscountSettings {
+    public static final String FIX_AMOUNT = "discount.fix-amount";
+    public static final String RATE_PERCENT = "discount.rate-percent";
+
+    // 1000원 할인, 10% 할인
+    public static final DiscountSettings DEFAULT = new DiscountSettings(1000, 10);
+
+    private final int fixAmount;
+    private final int ratePercent;
+
+    public DiscountSettings(int fixAmount, int ratePercent) {
+        if (fixAmount < 0) {
+            throw new IllegalArgumentException(FIX_AMOUNT + "는 0 이상이어야 합니다.");
+        }
+        if (ratePercent < 0 || ratePercent > 100) {
+            throw new IllegalArgumentException(RATE_PERCENT + "는 0 이상 100 이하여야 합니다.");
+        }
+        this.fixAmount = fixAmount;
+        this.ratePercent = ratePercent;
+    }
+
+    public static DiscountSettings load(Path path) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new DiscountSettings(
+                parseInt(properties, FIX_AMOUNT, DEFAULT.fixAmount),
+                parseInt(properties, RATE_PERCENT, DEFAULT.ratePercent));
+    }
+
+    private static int parseInt(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + "는 숫자여야 합니다. value = " + value);
+        }
+    }
+
+    // FixDiscountPolicy가 VIP에게 할인하는 금액
+    public int getFixAmount() {
+        return fixAmount;
+    }
+
+    // RateDiscountPolicy가 VIP에게 할인하는 비율
+    public int getRatePercent() {
+        return ratePercent;
+    }
+
+    @Override
+    public String toString() {
+        return "DiscountSettings{" +
+                "fixAmount=" + fixAmount +
+                ", ratePercent=" + ratePercent +
+                '}';
+    }
+}
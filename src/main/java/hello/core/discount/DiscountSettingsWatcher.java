@@ -0,0 +1,102 @@
+package hello.core.discount;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 설정 파일을 주기적으로 확인해서 바뀌면 DiscountSettings를 다시 읽는다.
+ *
+ * 읽은 설정은 volatile 필드 하나를 바꿔서 내보낸다. 할인 정책은 get()으로 그 필드를 읽기만 하므로 락을 잡지 않고,
+ * 바뀐 설정은 다음 get()부터 모든 쓰레드에 보인다. 파일이 바뀐 뒤 반영될 때까지는 최대 pollInterval이 걸린다.
+ * WatchService는 운영체제에 따라 내부적으로 몇 초 간격의 폴링으로 동작해서 지연을 보장할 수 없어 직접 확인한다.
+ *
+ * 파일이 없거나 형식이 틀리면 이전 설정을 그대로 쓰고 오류 수만 센다.
+ */
+public class DiscountSettingsWatcher implements Supplier<DiscountSettings>, AutoCloseable {
+    private final Path path;
+    private final long pollIntervalNanos;
+    private final LongAdder reloadCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private volatile DiscountSettings settings = DiscountSettings.DEFAULT;
+    private ScheduledExecutorService scheduler;
+    // 마지막으로 읽은 파일의 수정 시각과 크기. 폴링 쓰레드만 쓴다.
+    private long lastModified = Long.MIN_VALUE;
+    private long lastSize = -1;
+
+    public DiscountSettingsWatcher(Path path, Duration pollInterval) {
+        if (pollInterval.isZero() || pollInterval.isNegative()) {
+            throw new IllegalArgumentException("pollInterval은 0보다 커야 합니다.");
+        }
+        this.path = path;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        poll();
+    }
+
+    @Override
+    public DiscountSettings get() {
+        return settings;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "discount-settings-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, pollIntervalNanos, pollIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 파일의 수정 시각이나 크기가 바뀌었으면 다시 읽는다.
+     * @return 새 설정으로 바꿨으면 true
+     */
+    public synchronized boolean poll() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (modified == lastModified && attributes.size() == lastSize) {
+                return false;
+            }
+            // 읽는 도중 또 바뀌면 다음 확인에서 다시 읽도록 읽기 전의 값을 기억한다.
+            lastModified = modified;
+            lastSize = attributes.size();
+            settings = DiscountSettings.load(path);
+            reloadCount.increment();
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            errorCount.increment();
+            return false;
+        }
+    }
+
+    public long getReloadCount() {
+        return reloadCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+}
@@ -2,17 +2,31 @@ package hello.core.discount;
 
 import hello.core.member.Grade;
 import hello.core.member.Member;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.function.Supplier;
+
 @Component
 public class FixDiscountPolicy implements DiscountPolicy {
-    private int discountFixAmount = 1000; // 1000원 할인
+    // 할인 금액은 주문할 때마다 설정에서 읽어서, 설정이 바뀌면 재배포 없이 바로 반영된다.
+    private final Supplier<DiscountSettings> settings;
+
+    public FixDiscountPolicy() {
+        this(() -> DiscountSettings.DEFAULT); // 1000원 할인
+    }
+
+    // 설정 빈이 있으면 이 생성자를, 없으면 기본 생성자를 쓴다.
+    @Autowired(required = false)
+    public FixDiscountPolicy(Supplier<DiscountSettings> settings) {
+        this.settings = settings;
+    }
 
     @Override
     public int discount(Member member, int price) {
         // ENUM은 ==은 사용하는게 맞다고 함.
         if (member.getGrade() == Grade.VIP) {
-            return discountFixAmount;
+            return settings.get().getFixAmount();
         }
         return 0;
     }
@@ -0,0 +1,57 @@
+package hello.core.discount;
+
+/**
+ * 정해진 시간 동안만 적용하는 할인. 만든 뒤에는 바뀌지 않는다.
+ * 시각은 epoch 밀리초이고, startAt부터 endAt 직전까지 적용한다.
+ */
+public final class Promotion {
+    private final long id;
+    private final String name;
+    private final DiscountPolicy policy;
+    private final long startAt;
+    private final long endAt;
+
+    public Promotion(long id, String name, DiscountPolicy policy, long startAt, long endAt) {
+        if (policy == null) {
+            throw new IllegalArgumentException("할인 정책이 필요합니다.");
+        }
+        if (endAt <= startAt) {
+            throw new IllegalArgumentException("endAt은 startAt보다 늦어야 합니다.");
+        }
+        this.id = id;
+        this.name = name;
+        this.policy = policy;
+        this.startAt = startAt;
+        this.endAt = endAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DiscountPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getStartAt() {
+        return startAt;
+    }
+
+    public long getEndAt() {
+        return endAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Promotion{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", startAt=" + startAt +
+                ", endAt=" + endAt +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package hello.core.discount;
+
+import hello.core.member.Member;
+
+/**
+ * 기본 할인 정책에 지금 켜진 프로모션을 더한 할인 정책
+ *
+ * 프로모션끼리는 겹쳐 적용하지 않고, 기본 정책과 켜진 프로모션 중에서 가장 큰 할인 하나만 적용한다.
+ * 켜진 프로모션은 PromotionScheduler가 미리 만들어 둔 배열을 읽기만 하므로, 주문할 때 시각을 확인하지 않는다.
+ */
+public class PromotionDiscountPolicy implements DiscountPolicy {
+    private final DiscountPolicy basePolicy;
+    private final PromotionScheduler scheduler;
+
+    public PromotionDiscountPolicy(DiscountPolicy basePolicy, PromotionScheduler scheduler) {
+        this.basePolicy = basePolicy;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public int discount(Member member, int price) {
+        return discount(member, null, price);
+    }
+
+    @Override
+    public int discount(Member member, String itemName, int price) {
+        int discount = basePolicy.discount(member, itemName, price);
+        for (DiscountPolicy promotion : scheduler.activePolicies()) {
+            discount = Math.max(discount, promotion.discount(member, itemName, price));
+        }
+        return Math.min(discount, price);
+    }
+}
@@ -0,0 +1,293 @@
+package hello.core.discount;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 프로모션을 시작 시각에 켜고 종료 시각에 끄는 스케줄러 (계층형 타이밍 휠)
+ *
+ * 시간을 tick 단위로 나누고, 칸이 64개인 바퀴를 LEVELS단으로 둔다.
+ * 0단의 한 칸은 1 tick, 1단의 한 칸은 64 tick, 2단의 한 칸은 64 * 64 tick을 맡는다.
+ * 시작과 종료는 각각 남은 시간에 맞는 단의 칸에 넣고, 0단이 한 바퀴 돌 때마다 윗단의 다음 칸을 풀어서 아랫단에 다시 넣는다.
+ * 그래서 프로모션이 수천 개여도 등록과 취소는 O(1)이고, 시간이 흐를 때는 그 tick에 걸린 것만 처리한다.
+ *
+ * 켜진 프로모션의 할인 정책은 바뀔 때마다 배열로 새로 만들어서 volatile로 내보낸다.
+ * PromotionDiscountPolicy는 그 배열만 읽으므로 주문할 때 프로모션의 시간을 따지지 않고 락도 잡지 않는다.
+ * 시간은 advanceTo를 부르거나 start로 띄운 쓰레드가 tick마다 흘려보낸다. 켜지고 꺼지는 시각의 오차는 tick 이내다.
+ */
+public class PromotionScheduler implements AutoCloseable {
+    private static final int BITS = 6;
+    private static final int WHEEL_SIZE = 1 << BITS;
+    private static final int MASK = WHEEL_SIZE - 1;
+    // 6단이면 tick이 10ms일 때 약 21년까지 한 번에 넣을 수 있다. 더 먼 것은 맨 윗단에 넣었다가 다시 넣는다.
+    private static final int LEVELS = 6;
+    private static final long MAX_DELAY_TICKS = (1L << (BITS * LEVELS)) - 1;
+    private static final DiscountPolicy[] NONE = new DiscountPolicy[0];
+
+    private final long tickMillis;
+    private final LongSupplier clock;
+    private final Timer[][] wheels = new Timer[LEVELS][WHEEL_SIZE];
+    private final int[] levelCounts = new int[LEVELS];
+    private final Map<Long, Scheduled> scheduled = new HashMap<>();
+    // 켜진 순서를 지킨다.
+    private final Map<Long, Promotion> active = new LinkedHashMap<>();
+    // 다음에 처리할 tick
+    private long currentTick;
+    private volatile DiscountPolicy[] activePolicies = NONE;
+    private ScheduledExecutorService ticker;
+
+    public PromotionScheduler() {
+        this(Duration.ofMillis(10), System::currentTimeMillis);
+    }
+
+    public PromotionScheduler(Duration tick, LongSupplier clock) {
+        if (tick.toMillis() <= 0) {
+            throw new IllegalArgumentException("tick은 1ms 이상이어야 합니다.");
+        }
+        this.tickMillis = tick.toMillis();
+        this.clock = clock;
+        this.currentTick = Math.floorDiv(clock.getAsLong(), tickMillis) + 1;
+    }
+
+    /**
+     * 프로모션을 등록한다. 이미 시작 시각이 지났으면 바로 켜고, 종료 시각도 지났으면 등록하지 않는다.
+     * @throws IllegalArgumentException 같은 id의 프로모션이 이미 있다.
+     */
+    public synchronized void schedule(Promotion promotion) {
+        if (scheduled.containsKey(promotion.getId())) {
+            throw new IllegalArgumentException("이미 등록된 프로모션입니다. id = " + promotion.getId());
+        }
+        // 시작 시각 이후의 첫 tick에 켜고, 종료 시각 이후의 첫 tick에 끈다. 그래서 일찍 켜지거나 꺼지지 않는다.
+        long startTick = Math.floorDiv(promotion.getStartAt() + tickMillis - 1, tickMillis);
+        long endTick = Math.floorDiv(promotion.getEndAt() + tickMillis - 1, tickMillis);
+        if (endTick < currentTick) {
+            return;
+        }
+
+        Scheduled entry = new Scheduled(promotion);
+        scheduled.put(promotion.getId(), entry);
+        if (startTick < currentTick) {
+            activate(entry);
+            publish();
+        } else {
+            add(new Timer(entry, startTick, true));
+        }
+        add(new Timer(entry, endTick, false));
+    }
+
+    /**
+     * @return 등록된 프로모션이 있어서 취소했으면 true
+     */
+    public synchronized boolean cancel(long promotionId) {
+        Scheduled entry = scheduled.remove(promotionId);
+        if (entry == null) {
+            return false;
+        }
+        // 휠에 남은 Timer는 꺼낼 때 건너뛴다.
+        entry.cancelled = true;
+        if (active.remove(promotionId) != null) {
+            publish();
+        }
+        return true;
+    }
+
+    /**
+     * nowMillis까지의 tick을 처리해서 시작할 프로모션은 켜고 끝난 프로모션은 끈다.
+     */
+    public synchronized void advanceTo(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        boolean changed = false;
+        while (currentTick <= targetTick) {
+            if (isEmpty()) {
+                currentTick = targetTick + 1;
+                break;
+            }
+            int index = (int) currentTick & MASK;
+            if (index == 0) {
+                cascade();
+            }
+            int level = lowestLevel();
+            if (level > 0) {
+                // 아랫단이 모두 비었으면 그 단의 다음 칸을 풀 tick까지는 처리할 것이 없으므로 건너뛴다.
+                long span = 1L << (BITS * level);
+                currentTick = Math.min((currentTick | (span - 1)) + 1, targetTick + 1);
+                continue;
+            }
+            changed |= fire(index);
+            currentTick++;
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    public void advance() {
+        advanceTo(clock.getAsLong());
+    }
+
+    /**
+     * tick마다 advance를 부르는 데몬 쓰레드를 띄운다.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "promotion-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, 0, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    public synchronized List<Promotion> getActivePromotions() {
+        return new ArrayList<>(active.values());
+    }
+
+    // 아직 끝나지 않은 (켜졌거나 켜질) 프로모션 수
+    public synchronized int getScheduledCount() {
+        return scheduled.size();
+    }
+
+    // 할인 계산에서 읽는 값이라 복사하지 않는다. 바꾸면 안 된다.
+    DiscountPolicy[] activePolicies() {
+        return activePolicies;
+    }
+
+    private boolean isEmpty() {
+        return lowestLevel() == LEVELS;
+    }
+
+    // Timer가 있는 가장 아랫단. 모두 비었으면 LEVELS
+    private int lowestLevel() {
+        int level = 0;
+        while (level < LEVELS && levelCounts[level] == 0) {
+            level++;
+        }
+        return level;
+    }
+
+    private void add(Timer timer) {
+        long deadline = Math.max(timer.deadlineTick, currentTick);
+        long delay = deadline - currentTick;
+        if (delay > MAX_DELAY_TICKS) {
+            // 맨 윗단이 맡는 것보다 멀면 일단 가장 먼 칸에 넣는다. 그 칸을 풀 때 다시 넣는다.
+            deadline = currentTick + MAX_DELAY_TICKS;
+            delay = MAX_DELAY_TICKS;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) (deadline >>> (BITS * level)) & MASK;
+        timer.next = wheels[level][slot];
+        wheels[level][slot] = timer;
+        levelCounts[level]++;
+    }
+
+    // 0단이 한 바퀴를 돌았으면 1단의 다음 칸을 풀고, 1단도 한 바퀴를 돌았으면 2단의 칸을 푸는 식으로 올라간다.
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int index = (int) (currentTick >>> (BITS * level)) & MASK;
+            Timer timer = wheels[level][index];
+            wheels[level][index] = null;
+            while (timer != null) {
+                Timer next = timer.next;
+                levelCounts[level]--;
+                if (!timer.entry.cancelled) {
+                    add(timer);
+                }
+                timer = next;
+            }
+            if (index != 0) {
+                break;
+            }
+        }
+    }
+
+    // 같은 tick에 시작과 종료가 함께 있으면 켠 뒤에 끈다.
+    private boolean fire(int index) {
+        Timer timer = wheels[0][index];
+        wheels[0][index] = null;
+        List<Timer> ends = null;
+        boolean changed = false;
+        while (timer != null) {
+            Timer next = timer.next;
+            levelCounts[0]--;
+            if (!timer.entry.cancelled) {
+                if (timer.deadlineTick > currentTick) {
+                    // 맨 윗단보다 멀어서 당겨 넣었던 것이다.
+                    add(timer);
+                } else if (timer.start) {
+                    changed |= activate(timer.entry);
+                } else {
+                    if (ends == null) {
+                        ends = new ArrayList<>();
+                    }
+                    ends.add(timer);
+                }
+            }
+            timer = next;
+        }
+        if (ends != null) {
+            for (Timer end : ends) {
+                Promotion promotion = end.entry.promotion;
+                scheduled.remove(promotion.getId());
+                changed |= active.remove(promotion.getId()) != null;
+            }
+        }
+        return changed;
+    }
+
+    private boolean activate(Scheduled entry) {
+        Promotion promotion = entry.promotion;
+        return active.put(promotion.getId(), promotion) == null;
+    }
+
+    private void publish() {
+        DiscountPolicy[] policies = new DiscountPolicy[active.size()];
+        int i = 0;
+        for (Promotion promotion : active.values()) {
+            policies[i++] = promotion.getPolicy();
+        }
+        activePolicies = policies;
+    }
+
+    private static final class Scheduled {
+        private final Promotion promotion;
+        private boolean cancelled;
+
+        private Scheduled(Promotion promotion) {
+            this.promotion = promotion;
+        }
+    }
+
+    private static final class Timer {
+        private final Scheduled entry;
+        private final long deadlineTick;
+        private final boolean start;
+        private Timer next;
+
+        private Timer(Scheduled entry, long deadlineTick, boolean start) {
+            this.entry = entry;
+            this.deadlineTick = deadlineTick;
+            this.start = start;
+        }
+    }
+}
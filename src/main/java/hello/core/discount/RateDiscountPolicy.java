@@ -2,18 +2,32 @@ package hello.core.discount;
 
 import hello.core.member.Grade;
 import hello.core.member.Member;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
+import java.util.function.Supplier;
+
 @Component
 @Primary
 public class RateDiscountPolicy implements DiscountPolicy {
-    private int discountPercent = 10;
+    // 할인 비율은 주문할 때마다 설정에서 읽어서, 설정이 바뀌면 재배포 없이 바로 반영된다.
+    private final Supplier<DiscountSettings> settings;
+
+    public RateDiscountPolicy() {
+        this(() -> DiscountSettings.DEFAULT); // 10% 할인
+    }
+
+    // 설정 빈이 있으면 이 생성자를, 없으면 기본 생성자를 쓴다.
+    @Autowired(required = false)
+    public RateDiscountPolicy(Supplier<DiscountSettings> settings) {
+        this.settings = settings;
+    }
 
     @Override
     public int discount(Member member, int price) {
         if (member.getGrade() == Grade.VIP) {
-            return price * discountPercent / 100;
+            return price * settings.get().getRatePercent() / 100;
         }
 
         return 0;
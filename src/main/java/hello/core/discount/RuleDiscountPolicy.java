@@ -0,0 +1,249 @@
+package hello.core.discount;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 규칙 파일로 정하는 할인 정책
+ *
+ * 한 줄에 규칙 하나를 "등급 상품 최소가격 할인" 순서로 쓴다. #부터 줄 끝까지는 주석이다.
+ * <pre>
+ * # 등급  상품    최소가격  할인
+ * VIP     itemA   50000     5000
+ * VIP     *       0         10%
+ * *       *       100000    1000
+ * </pre>
+ * 등급과 상품에 *를 쓰면 모든 등급, 모든 상품에 맞는다. 할인은 %로 끝나면 비율, 아니면 금액이다.
+ * 위에서부터 처음 맞는 규칙 하나만 적용하고, 맞는 규칙이 없으면 할인하지 않는다. 할인은 상품 가격을 넘지 않는다.
+ *
+ * 규칙은 만들 때 한 번 컴파일한다. 등급과 상품 조합마다 "이 가격 이상이면 이 할인"인 구간 표를 미리 만들어서,
+ * 주문할 때는 규칙을 하나씩 따지지 않고 등급별 배열, 상품 맵, 구간 배열만 읽는다.
+ */
+public class RuleDiscountPolicy implements DiscountPolicy {
+    private static final Grade[] GRADES = Grade.values();
+    private static final String ANY = "*";
+
+    // 등급 순서(ordinal)로 찾는다. 상품별 규칙이 없는 등급은 itemTables가 null이다.
+    private final PriceTable[] anyItemTables = new PriceTable[GRADES.length];
+    private final Map<String, PriceTable>[] itemTables;
+    private final int ruleCount;
+
+    @SuppressWarnings("unchecked")
+    private RuleDiscountPolicy(List<Rule> rules) {
+        this.ruleCount = rules.size();
+        this.itemTables = new Map[GRADES.length];
+        for (Grade grade : GRADES) {
+            List<Rule> gradeRules = new ArrayList<>();
+            Set<String> items = new LinkedHashSet<>();
+            for (Rule rule : rules) {
+                if (rule.grade == null || rule.grade == grade) {
+                    gradeRules.add(rule);
+                    if (rule.item != null) {
+                        items.add(rule.item);
+                    }
+                }
+            }
+
+            anyItemTables[grade.ordinal()] = PriceTable.compile(gradeRules, null);
+            if (!items.isEmpty()) {
+                Map<String, PriceTable> byItem = new HashMap<>();
+                for (String item : items) {
+                    byItem.put(item, PriceTable.compile(gradeRules, item));
+                }
+                itemTables[grade.ordinal()] = byItem;
+            }
+        }
+    }
+
+    public static RuleDiscountPolicy load(Path path) {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static RuleDiscountPolicy parse(String rules) {
+        return parse(new StringReader(rules));
+    }
+
+    /**
+     * @throws IllegalArgumentException 형식이 맞지 않는 줄이 있으면 줄 번호와 함께 던진다.
+     */
+    public static RuleDiscountPolicy parse(Reader reader) {
+        List<Rule> rules = new ArrayList<>();
+        try {
+            BufferedReader lines = new BufferedReader(reader);
+            String line;
+            int lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                String content = (comment < 0 ? line : line.substring(0, comment)).trim();
+                if (!content.isEmpty()) {
+                    rules.add(Rule.parse(content, lineNumber));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new RuleDiscountPolicy(rules);
+    }
+
+    /**
+     * 상품 이름을 모르므로 상품이 *인 규칙만 적용한다.
+     */
+    @Override
+    public int discount(Member member, int price) {
+        return anyItemTables[member.getGrade().ordinal()].discount(price);
+    }
+
+    @Override
+    public int discount(Member member, String itemName, int price) {
+        int grade = member.getGrade().ordinal();
+        Map<String, PriceTable> byItem = itemTables[grade];
+        // 상품별 규칙이 없는 등급은 맵을 찾지 않는다.
+        PriceTable table = byItem == null || itemName == null ? null : byItem.get(itemName);
+        return (table == null ? anyItemTables[grade] : table).discount(price);
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * 구간 하나를 [최소가격, 할인 금액, 할인 비율] 세 칸으로 이어 붙인 배열
+     * 최소가격은 오름차순이고 첫 구간은 Integer.MIN_VALUE부터 시작한다. 배열 하나만 읽도록 한데 모았다.
+     */
+    private static final class PriceTable {
+        private final int[] table;
+
+        private PriceTable(int[] table) {
+            this.table = table;
+        }
+
+        int discount(int price) {
+            int[] t = table;
+            int i = t.length - 3;
+            while (price < t[i]) {
+                i -= 3;
+            }
+            // 비율 할인은 long으로 계산해서 큰 가격에서도 넘치지 않게 한다.
+            long discount = t[i + 1] + (long) price * t[i + 2] / 100;
+            return discount <= price ? (int) discount : Math.max(price, 0);
+        }
+
+        /**
+         * 각 구간에서 처음 맞는 규칙을 미리 골라 둔다.
+         * 한 구간 안의 가격은 모두 같은 규칙들의 최소가격 조건을 만족하므로, 구간 시작 가격으로 고르면 된다.
+         */
+        static PriceTable compile(List<Rule> rules, String item) {
+            List<Rule> matching = new ArrayList<>();
+            for (Rule rule : rules) {
+                if (rule.item == null || rule.item.equals(item)) {
+                    matching.add(rule);
+                }
+            }
+
+            int[] starts = new int[matching.size() + 1];
+            starts[0] = Integer.MIN_VALUE;
+            for (int i = 0; i < matching.size(); i++) {
+                starts[i + 1] = matching.get(i).minPrice;
+            }
+            Arrays.sort(starts);
+
+            int[] table = new int[starts.length * 3];
+            int size = 0;
+            for (int start : starts) {
+                Rule first = null;
+                for (Rule rule : matching) {
+                    if (rule.minPrice <= start) {
+                        first = rule;
+                        break;
+                    }
+                }
+                int amount = first == null ? 0 : first.amount;
+                int percent = first == null ? 0 : first.percent;
+                // 앞 구간과 할인이 같으면 합친다.
+                if (size > 0 && table[size - 2] == amount && table[size - 1] == percent) {
+                    continue;
+                }
+                table[size++] = start;
+                table[size++] = amount;
+                table[size++] = percent;
+            }
+            return new PriceTable(Arrays.copyOf(table, size));
+        }
+    }
+
+    private static final class Rule {
+        // null이면 모든 등급, 모든 상품
+        private final Grade grade;
+        private final String item;
+        private final int minPrice;
+        private final int amount;
+        private final int percent;
+
+        private Rule(Grade grade, String item, int minPrice, int amount, int percent) {
+            this.grade = grade;
+            this.item = item;
+            this.minPrice = minPrice;
+            this.amount = amount;
+            this.percent = percent;
+        }
+
+        static Rule parse(String content, int lineNumber) {
+            String[] fields = content.split("\\s+");
+            if (fields.length != 4) {
+                throw invalid(lineNumber, "등급 상품 최소가격 할인 순서로 4개를 써야 합니다.");
+            }
+            Grade grade = ANY.equals(fields[0]) ? null : parseGrade(fields[0], lineNumber);
+            String item = ANY.equals(fields[1]) ? null : fields[1];
+            int minPrice = parseInt(fields[2], lineNumber);
+            String discount = fields[3];
+            boolean rate = discount.endsWith("%");
+            int value = parseInt(rate ? discount.substring(0, discount.length() - 1) : discount, lineNumber);
+            if (value < 0 || (rate && value > 100)) {
+                throw invalid(lineNumber, "할인은 0 이상, 비율은 100% 이하여야 합니다.");
+            }
+            return new Rule(grade, item, minPrice, rate ? 0 : value, rate ? value : 0);
+        }
+
+        private static Grade parseGrade(String value, int lineNumber) {
+            for (Grade grade : GRADES) {
+                if (grade.name().equals(value)) {
+                    return grade;
+                }
+            }
+            throw invalid(lineNumber, "없는 등급입니다. " + value);
+        }
+
+        private static int parseInt(String value, int lineNumber) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw invalid(lineNumber, "숫자가 아닙니다. " + value);
+            }
+        }
+
+        private static IllegalArgumentException invalid(int lineNumber, String message) {
+            return new IllegalArgumentException(lineNumber + "번째 줄: " + message);
+        }
+    }
+}
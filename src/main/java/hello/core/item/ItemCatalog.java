@@ -0,0 +1,117 @@
+package hello.core.item;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상품 목록
+ *
+ * 상품은 등록한 순서대로 0, 1, 2, ... 의 id를 받고, 이름과 가격은 id를 인덱스로 하는 배열에 둔다.
+ * 같은 이름은 한 번만 등록되어서 주문들이 같은 String 객체를 함께 쓴다. (intern)
+ * id로 가격을 찾는 것은 배열 하나를 읽는 것이라 맵을 찾는 것보다 싸고, 상품별 집계도 id를 인덱스로 쓸 수 있다.
+ *
+ * 등록과 가격 변경은 드물어서 한 쓰레드씩 하고, 조회는 락 없이 한다.
+ * 조회하는 쪽은 volatile인 table 하나만 읽으므로 그 안의 배열과 크기가 항상 같은 시점의 값이다.
+ */
+public class ItemCatalog {
+    public static final int UNKNOWN_ID = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Table table = new Table(new String[16], new int[16], 0);
+
+    /**
+     * 상품을 등록한다. 이미 있는 이름이면 가격만 바꾸고 원래 id를 돌려준다.
+     * @return 상품 id
+     */
+    public synchronized int register(String name, int price) {
+        if (name == null) {
+            throw new IllegalArgumentException("상품 이름이 필요합니다.");
+        }
+        checkPrice(price);
+        Integer id = ids.get(name);
+        if (id != null) {
+            updatePrice(id, price);
+            return id;
+        }
+
+        Table current = table;
+        int newId = current.size;
+        String[] names = current.names;
+        int[] prices = current.prices;
+        if (newId == names.length) {
+            names = Arrays.copyOf(names, newId * 2);
+            prices = Arrays.copyOf(prices, newId * 2);
+        }
+        // 아직 size 밖의 칸이라 조회하는 쪽은 읽지 않는다. 새 table을 volatile로 쓰면 함께 보인다.
+        names[newId] = name;
+        prices[newId] = price;
+        table = new Table(names, prices, newId + 1);
+        ids.put(name, newId);
+        return newId;
+    }
+
+    /**
+     * 가격 배열을 복사해서 바꾼다. 조회 중인 쪽은 바꾸기 전 배열을 끝까지 읽는다.
+     */
+    public synchronized void updatePrice(int id, int price) {
+        checkPrice(price);
+        Table current = table;
+        current.checkId(id);
+        int[] prices = current.prices.clone();
+        prices[id] = price;
+        table = new Table(current.names, prices, current.size);
+    }
+
+    public int getPrice(int id) {
+        Table current = table;
+        current.checkId(id);
+        return current.prices[id];
+    }
+
+    public String getName(int id) {
+        Table current = table;
+        current.checkId(id);
+        return current.names[id];
+    }
+
+    /**
+     * @return 없는 이름이면 UNKNOWN_ID
+     */
+    public int findId(String name) {
+        Integer id = ids.get(name);
+        return id == null ? UNKNOWN_ID : id;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < table.size;
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    private static void checkPrice(int price) {
+        if (price < 0) {
+            throw new IllegalArgumentException("상품 가격은 0 이상이어야 합니다.");
+        }
+    }
+
+    private static final class Table {
+        private final String[] names;
+        private final int[] prices;
+        private final int size;
+
+        private Table(String[] names, int[] prices, int size) {
+            this.names = names;
+            this.prices = prices;
+            this.size = size;
+        }
+
+        void checkId(int id) {
+            if (id < 0 || id >= size) {
+                throw new IllegalArgumentException("상품이 없습니다. itemId = " + id);
+            }
+        }
+    }
+}
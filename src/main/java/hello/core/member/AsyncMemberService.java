@@ -0,0 +1,8 @@
+package hello.core.member;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncMemberService {
+    CompletableFuture<Void> join(Member member);
+    CompletableFuture<Member> findMember(Long memberId);
+}
@@ -0,0 +1,51 @@
+package hello.core.member;
+
+import hello.core.AsyncExecutors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * MemberService의 호출을 executor에서 실행하고 바로 CompletableFuture를 돌려준다.
+ * 리포지토리가 느려도 호출한 쓰레드는 기다리지 않는다.
+ * executor를 받지 않고 만들면 직접 만든 executor를 쓰고, close할 때 종료한다. 받은 executor는 종료하지 않는다.
+ */
+public class AsyncMemberServiceImpl implements AsyncMemberService, AutoCloseable {
+    private final MemberService memberService;
+    private final Executor executor;
+    // 직접 만든 executor. 받은 executor를 쓰면 null이다.
+    private final ExecutorService ownedExecutor;
+
+    public AsyncMemberServiceImpl(MemberService memberService) {
+        this(memberService, AsyncExecutors.newDefaultExecutor(), true);
+    }
+
+    public AsyncMemberServiceImpl(MemberService memberService, Executor executor) {
+        this(memberService, executor, false);
+    }
+
+    private AsyncMemberServiceImpl(MemberService memberService, Executor executor, boolean owned) {
+        this.memberService = memberService;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+    }
+
+    @Override
+    public CompletableFuture<Void> join(Member member) {
+        return CompletableFuture.runAsync(() -> memberService.join(member), executor);
+    }
+
+    @Override
+    public CompletableFuture<Member> findMember(Long memberId) {
+        return CompletableFuture.supplyAsync(() -> memberService.findMember(memberId), executor);
+    }
+
+    // 이미 받은 요청은 끝까지 처리하고 새 요청은 받지 않는다.
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+}
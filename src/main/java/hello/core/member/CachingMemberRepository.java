@@ -0,0 +1,288 @@
+package hello.core.member;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 느린 MemberRepository 앞에 두는 읽기 캐시
+ *
+ * 조회할 때 캐시에 없으면 위임 리포지토리에서 읽어서 넣는다. (read-through)
+ * 크기가 maximumSize를 넘으면 가장 오래 안 쓴 회원이 후보가 되는데,
+ * 새로 들어올 회원의 최근 조회 빈도가 후보보다 높을 때만 교체한다. (TinyLFU 입장 정책)
+ * 그래서 한 번 조회되고 말 회원들이 자주 쓰는 회원을 밀어내지 못한다.
+ *
+ * 저장된 지 ttl이 지난 항목은 만료된다. save는 위임 리포지토리에 쓴 다음 캐시에서 해당 회원을 지운다.
+ *
+ * 캐시에 있는 회원은 ConcurrentHashMap에서 락 없이 꺼낸다. (Caffeine 방식)
+ * 조회 순서와 빈도는 락이 필요하므로 바로 반영하지 않고, 쓰레드별로 나눈 작은 버퍼에 회원 id만 적어 둔다.
+ * 버퍼가 차면 그때 락을 잡을 수 있는 쓰레드 하나가 모아서 반영한다. 버퍼가 가득 찼거나 다른 쓰레드가 반영 중이면 기록을 버린다.
+ * 빈도와 순서는 교체할 후보를 고를 때만 쓰는 근사값이라 조금 잃어도 상관없다.
+ */
+public class CachingMemberRepository implements MemberRepository {
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    private final MemberRepository delegate;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    // 조회는 data만 읽는다. 넣고 빼는 것은 evictionLock을 잡고 order와 함께 바꾼다.
+    private final ConcurrentHashMap<Long, CacheEntry> data = new ConcurrentHashMap<>();
+    // 오래 안 쓴 순서. evictionLock을 잡고만 읽고 쓴다.
+    private final LinkedHashMap<Long, CacheEntry> order;
+    private final FrequencySketch sketch;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer[] readBuffers;
+    // save가 일어날 때마다 증가한다. 조회 도중에 save가 끼어들었으면 읽어 온 값은 캐시에 넣지 않는다.
+    private long writeVersion;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public CachingMemberRepository(MemberRepository delegate, int maximumSize, Duration ttl) {
+        this(delegate, maximumSize, ttl, System::nanoTime);
+    }
+
+    CachingMemberRepository(MemberRepository delegate, int maximumSize, Duration ttl, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize는 0보다 커야 합니다.");
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.order = new LinkedHashMap<>(16, 0.75f, true);
+        this.sketch = new FrequencySketch(maximumSize);
+        // 버퍼 수는 코어 수 이상인 2의 거듭제곱
+        int stripes = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors(), 2) - 1) << 1;
+        this.readBuffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
+    }
+
+    @Override
+    public void save(Member member) {
+        delegate.save(member);
+        evictionLock.lock();
+        try {
+            writeVersion++;
+            remove(member.getId());
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Member> members) {
+        delegate.saveAll(members);
+        evictionLock.lock();
+        try {
+            writeVersion++;
+            for (Member member : members) {
+                remove(member.getId());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        if (memberId == null) {
+            return null;
+        }
+
+        CacheEntry entry = data.get(memberId);
+        if (entry != null && ticker.getAsLong() - entry.expiresAt < 0) {
+            hitCount.increment();
+            recordRead(memberId);
+            return entry.member;
+        }
+
+        long version;
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            sketch.increment(memberId);
+            if (entry != null && order.get(memberId) == entry) {
+                // 만료된 항목
+                remove(memberId);
+            }
+            version = writeVersion;
+        } finally {
+            evictionLock.unlock();
+        }
+
+        missCount.increment();
+        // 느린 조회는 락 밖에서 한다.
+        Member member = delegate.findById(memberId);
+        if (member != null) {
+            admit(memberId, member, version);
+        }
+        return member;
+    }
+
+    // 전체 순회는 캐시를 거치지 않는다.
+    @Override
+    public void forEach(Consumer<? super Member> action) {
+        delegate.forEach(action);
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    // 쓰레드 id로 버퍼를 고른다. 버퍼가 차면 락을 잡을 수 있을 때만 모아서 반영한다.
+    private void recordRead(long memberId) {
+        long threadId = Thread.currentThread().getId();
+        ReadBuffer buffer = readBuffers[(int) (threadId * 0x9E3779B97F4A7C15L >>> 32) & (readBuffers.length - 1)];
+        if (buffer.offer(memberId) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    // evictionLock을 잡은 상태에서 호출한다.
+    private void drainReadBuffers() {
+        for (ReadBuffer buffer : readBuffers) {
+            buffer.drainTo(this);
+        }
+    }
+
+    // evictionLock을 잡은 상태에서 호출한다. 조회 빈도를 올리고, 캐시에 있으면 최근에 쓴 쪽으로 옮긴다.
+    private void onRead(long memberId) {
+        sketch.increment(memberId);
+        order.get(memberId);
+    }
+
+    // evictionLock을 잡은 상태에서 호출한다.
+    private void remove(Long memberId) {
+        order.remove(memberId);
+        data.remove(memberId);
+    }
+
+    private void admit(Long memberId, Member member, long version) {
+        evictionLock.lock();
+        try {
+            if (version != writeVersion) {
+                return;
+            }
+
+            long now = ticker.getAsLong();
+            if (order.size() >= maximumSize && !order.containsKey(memberId)) {
+                Iterator<Map.Entry<Long, CacheEntry>> eldest = order.entrySet().iterator();
+                Map.Entry<Long, CacheEntry> victim = eldest.next();
+                // 만료된 항목은 빈도와 상관없이 내보낸다.
+                boolean expired = now - victim.getValue().expiresAt >= 0;
+                if (!expired && sketch.frequency(memberId) <= sketch.frequency(victim.getKey())) {
+                    return;
+                }
+                eldest.remove();
+                data.remove(victim.getKey());
+                evictionCount.increment();
+            }
+            CacheEntry entry = new CacheEntry(member, now + ttlNanos);
+            order.put(memberId, entry);
+            data.put(memberId, entry);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class CacheEntry {
+        private final Member member;
+        private final long expiresAt;
+
+        private CacheEntry(Member member, long expiresAt) {
+            this.member = member;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 조회한 회원 id를 적어 두는 고정 크기 버퍼. 여러 쓰레드가 적고 락을 잡은 쓰레드 하나만 꺼낸다.
+     * 적는 쪽은 writeCounter를 CAS로 올려서 칸을 받고, id를 쓴 뒤 칸에 번호를 기록한다. 가득 차면 적지 않고 버린다.
+     */
+    private static final class ReadBuffer {
+        private final AtomicLongArray keys = new AtomicLongArray(READ_BUFFER_SIZE);
+        // 칸마다 마지막으로 채워진 번호. 꺼내는 번호와 같아야 id를 다 쓴 칸이다.
+        private final AtomicLongArray sequences = new AtomicLongArray(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        // 꺼내는 쓰레드만 쓴다.
+        private volatile long readCounter;
+
+        private ReadBuffer() {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                sequences.set(i, -1);
+            }
+        }
+
+        /**
+         * @return 버퍼가 차서 꺼낼 때가 됐으면 true
+         */
+        boolean offer(long key) {
+            long tail = writeCounter.get();
+            if (tail - readCounter >= READ_BUFFER_SIZE) {
+                return true;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                int index = (int) tail & READ_BUFFER_MASK;
+                keys.set(index, key);
+                // id를 다 쓴 뒤에 번호를 써야 꺼내는 쪽이 쓴 id를 본다.
+                sequences.lazySet(index, tail);
+                return tail + 1 - readCounter >= READ_BUFFER_SIZE;
+            }
+            // 다른 쓰레드와 부딪히면 다시 시도하지 않고 버린다.
+            return false;
+        }
+
+        // 아직 id를 다 쓰지 않은 칸을 만나면 거기서 멈추고 다음에 꺼낸다.
+        void drainTo(CachingMemberRepository cache) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            while (head < tail) {
+                int index = (int) head & READ_BUFFER_MASK;
+                if (sequences.get(index) != head) {
+                    break;
+                }
+                cache.onRead(keys.get(index));
+                head++;
+            }
+            readCounter = head;
+        }
+    }
+}
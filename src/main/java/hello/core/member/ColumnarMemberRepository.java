@@ -0,0 +1,373 @@
+package hello.core.member;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * 회원을 컬럼별 배열로 저장하는 리포지토리
+ *
+ * id는 long[], 등급은 byte[], 이름은 하나의 char[]에 이어 붙이고 행마다 시작 위치와 길이만 둔다.
+ * 등급별 회원 수처럼 전체를 훑는 질의는 배열을 순서대로 읽기만 하므로 Member 객체를 따라다니는 것보다 캐시 효율이 좋다.
+ * 행이 많으면 구간을 나눠 병렬로 훑고, 훑는 동안 행마다 객체를 만들지 않는다.
+ *
+ * id로 찾을 때는 행 번호를 담은 int[] 해시 테이블(선형 탐사)을 쓰고, 찾은 행으로 새 Member를 만들어 돌려준다.
+ */
+public class ColumnarMemberRepository implements MemberRepository {
+    private static final Grade[] GRADES = Grade.values();
+    private static final byte NULL_GRADE = -1;
+    private static final int NULL_LENGTH = -1;
+    // 이보다 행이 적으면 병렬로 나누는 비용이 더 크다.
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids;
+    private byte[] grades;
+    private int[] nameOffsets;
+    private int[] nameLengths;
+    private char[] names;
+    private int namesLength;
+    private int size;
+
+    // 행 번호 + 1을 담는다. 0은 빈 칸이다.
+    private int[] slots;
+
+    public ColumnarMemberRepository() {
+        this(1024);
+    }
+
+    public ColumnarMemberRepository(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.ids = new long[capacity];
+        this.grades = new byte[capacity];
+        this.nameOffsets = new int[capacity];
+        this.nameLengths = new int[capacity];
+        this.names = new char[capacity * 8];
+        this.slots = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * 행 단위 필터. 행마다 객체를 만들지 않도록 컬럼 값을 그대로 받는다.
+     */
+    @FunctionalInterface
+    public interface RowFilter {
+        boolean test(long id, Grade grade);
+    }
+
+    @Override
+    public void save(Member member) {
+        lock.writeLock().lock();
+        try {
+            put(member);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Member> members) {
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(size + members.size());
+            for (Member member : members) {
+                put(member);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        if (memberId == null) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            int row = rowOf(memberId);
+            return row < 0 ? null : toMember(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 순회하는 동안 읽기 락을 잡고 있으므로 저장은 기다린다.
+    @Override
+    public void forEach(Consumer<? super Member> action) {
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                action.accept(toMember(row));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByGrade(Grade grade) {
+        byte ordinal = (byte) grade.ordinal();
+        lock.readLock().lock();
+        try {
+            byte[] grades = this.grades;
+            return scan(size, (from, to) -> {
+                long count = 0;
+                for (int row = from; row < to; row++) {
+                    if (grades[row] == ordinal) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 등급별 회원 수. 등급이 없는 회원은 세지 않는다.
+     */
+    public Map<Grade, Long> gradeDistribution() {
+        lock.readLock().lock();
+        try {
+            byte[] grades = this.grades;
+            int rows = size;
+            long[] counts = IntStream.range(0, chunkCount(rows))
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        long[] partial = new long[GRADES.length];
+                        int to = Math.min(rows, (chunk + 1) * CHUNK_SIZE);
+                        for (int row = chunk * CHUNK_SIZE; row < to; row++) {
+                            if (grades[row] != NULL_GRADE) {
+                                partial[grades[row]]++;
+                            }
+                        }
+                        return partial;
+                    })
+                    .reduce(new long[GRADES.length], ColumnarMemberRepository::add);
+
+            Map<Grade, Long> distribution = new EnumMap<>(Grade.class);
+            for (Grade grade : GRADES) {
+                distribution.put(grade, counts[grade.ordinal()]);
+            }
+            return distribution;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(RowFilter filter) {
+        lock.readLock().lock();
+        try {
+            long[] ids = this.ids;
+            byte[] grades = this.grades;
+            return scan(size, (from, to) -> {
+                long count = 0;
+                for (int row = from; row < to; row++) {
+                    if (filter.test(ids[row], gradeOf(grades[row]))) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 필터를 통과한 회원의 id, 저장된 순서
+     */
+    public long[] findIds(RowFilter filter) {
+        lock.readLock().lock();
+        try {
+            long[] ids = this.ids;
+            byte[] grades = this.grades;
+            int rows = size;
+            return IntStream.range(0, chunkCount(rows))
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        long[] matched = new long[16];
+                        int count = 0;
+                        int to = Math.min(rows, (chunk + 1) * CHUNK_SIZE);
+                        for (int row = chunk * CHUNK_SIZE; row < to; row++) {
+                            if (filter.test(ids[row], gradeOf(grades[row]))) {
+                                if (count == matched.length) {
+                                    matched = Arrays.copyOf(matched, count * 2);
+                                }
+                                matched[count++] = ids[row];
+                            }
+                        }
+                        return Arrays.copyOf(matched, count);
+                    })
+                    .flatMapToLong(Arrays::stream)
+                    .toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByNamePrefix(String prefix) {
+        lock.readLock().lock();
+        try {
+            char[] names = this.names;
+            int[] nameOffsets = this.nameOffsets;
+            int[] nameLengths = this.nameLengths;
+            int prefixLength = prefix.length();
+            return scan(size, (from, to) -> {
+                long count = 0;
+                for (int row = from; row < to; row++) {
+                    if (nameLengths[row] >= prefixLength && startsWith(names, nameOffsets[row], prefix)) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeCounter {
+        long count(int from, int to);
+    }
+
+    // 행이 많으면 CHUNK_SIZE 단위로 나눠서 병렬로 센다.
+    private static long scan(int rows, RangeCounter counter) {
+        if (rows < PARALLEL_THRESHOLD) {
+            return counter.count(0, rows);
+        }
+        return IntStream.range(0, chunkCount(rows))
+                .parallel()
+                .mapToLong(chunk -> counter.count(chunk * CHUNK_SIZE, Math.min(rows, (chunk + 1) * CHUNK_SIZE)))
+                .sum();
+    }
+
+    private static int chunkCount(int rows) {
+        return (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private static long[] add(long[] left, long[] right) {
+        long[] sum = new long[left.length];
+        for (int i = 0; i < left.length; i++) {
+            sum[i] = left[i] + right[i];
+        }
+        return sum;
+    }
+
+    private static boolean startsWith(char[] names, int offset, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (names[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Grade gradeOf(byte grade) {
+        return grade == NULL_GRADE ? null : GRADES[grade];
+    }
+
+    private Member toMember(int row) {
+        String name = nameLengths[row] == NULL_LENGTH ? null : new String(names, nameOffsets[row], nameLengths[row]);
+        return new Member(ids[row], name, gradeOf(grades[row]));
+    }
+
+    // 아래 메서드들은 쓰기 락을 잡은 상태에서 호출한다.
+    private void put(Member member) {
+        long id = member.getId();
+        int row = rowOf(id);
+        if (row < 0) {
+            ensureCapacity(size + 1);
+            row = size++;
+            ids[row] = id;
+            insertSlot(slots, row, id);
+        }
+
+        grades[row] = member.getGrade() == null ? NULL_GRADE : (byte) member.getGrade().ordinal();
+        String name = member.getName();
+        if (name == null) {
+            nameLengths[row] = NULL_LENGTH;
+            return;
+        }
+        // 이름이 바뀌면 이전 이름 자리는 재사용하지 않고 뒤에 새로 붙인다.
+        ensureNamesCapacity(name.length());
+        name.getChars(0, name.length(), names, namesLength);
+        nameOffsets[row] = namesLength;
+        nameLengths[row] = name.length();
+        namesLength += name.length();
+    }
+
+    private int rowOf(long id) {
+        int mask = slots.length - 1;
+        for (int index = hash(id) & mask; ; index = (index + 1) & mask) {
+            int slot = slots[index];
+            if (slot == 0) {
+                return -1;
+            }
+            if (ids[slot - 1] == id) {
+                return slot - 1;
+            }
+        }
+    }
+
+    private void insertSlot(int[] slots, int row, long id) {
+        int mask = slots.length - 1;
+        int index = hash(id) & mask;
+        while (slots[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        slots[index] = row + 1;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows > ids.length) {
+            int capacity = Math.max(rows, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            grades = Arrays.copyOf(grades, capacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+        }
+        // 해시 테이블은 절반 이상 차지 않게 한다.
+        if (rows * 2 > slots.length) {
+            int[] newSlots = new int[tableSizeFor(rows)];
+            for (int row = 0; row < size; row++) {
+                insertSlot(newSlots, row, ids[row]);
+            }
+            slots = newSlots;
+        }
+    }
+
+    private void ensureNamesCapacity(int additional) {
+        int required = namesLength + additional;
+        if (required > names.length) {
+            names = Arrays.copyOf(names, Math.max(required, names.length * 2));
+        }
+    }
+
+    private static int tableSizeFor(int rows) {
+        return Integer.highestOneBit(Math.max(rows, 8) * 2 - 1) << 1;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
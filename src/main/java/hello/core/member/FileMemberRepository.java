@@ -0,0 +1,446 @@
+package hello.core.member;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 재시작해도 회원이 사라지지 않는 리포지토리
+ *
+ * save는 먼저 로그 파일(members.wal)에 이어 쓰고 디스크에 반영(force)된 뒤에 반환한다.
+ * 여러 쓰레드가 동시에 저장하면 먼저 force를 시작한 쓰레드가 그때까지 쓰인 기록을 한 번에 반영한다. (그룹 커밋)
+ * 로그가 snapshotInterval 건 쌓이면 백그라운드 쓰레드가 로그를 members.wal.old로 돌려 놓고 새 로그를 연 다음,
+ * 전체 회원을 메모리 맵 스냅샷 파일(members.snapshot)로 쓰고 돌려 놓은 로그를 지운다.
+ * 저장하는 쓰레드는 로그를 바꾸는 잠깐만 기다리고 스냅샷을 쓰는 동안에는 기다리지 않는다.
+ *
+ * 시작할 때는 스냅샷을 읽고 members.wal.old, members.wal 순서로 로그를 다시 적용한다.
+ * 마지막 기록이 쓰다 만 상태면 그 앞까지만 복구한다. 조회는 메모리의 ConcurrentHashMap에서 한다.
+ * close 한 뒤에 저장하면 IllegalStateException을 던진다.
+ */
+public class FileMemberRepository implements MemberRepository, AutoCloseable {
+    static final String SNAPSHOT_FILE = "members.snapshot";
+    static final String LOG_FILE = "members.wal";
+    static final String ROTATED_LOG_FILE = "members.wal.old";
+
+    private static final Logger log = LoggerFactory.getLogger(FileMemberRepository.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x4D424D53; // "MBMS"
+    private static final int SNAPSHOT_HEADER_SIZE = 4 + 8 + 8;
+    private static final int LOG_RECORD_HEADER_SIZE = 4 + 8;
+
+    private final Map<Long, Member> store;
+    private final Path snapshotPath;
+    private final Path walPath;
+    private final Path rotatedWalPath;
+    private final int snapshotInterval;
+    private final ExecutorService snapshotExecutor;
+
+    // 잠금 순서는 snapshotLock, writeLock, flushLock
+    private final Object snapshotLock = new Object();
+    private final Object writeLock = new Object();
+    private final Object flushLock = new Object();
+    // writeLock과 flushLock을 모두 잡고 바꾼다.
+    private FileChannel wal;
+    private long logSize;
+    private int recordsSinceSnapshot;
+    private boolean snapshotScheduled;
+    private boolean closed;
+    // 로그를 비워도 줄어들지 않는 누적 위치. 그룹 커밋에서 어디까지 반영됐는지 비교하는 데 쓴다.
+    private volatile long appendedPosition;
+    private volatile long durablePosition;
+
+    public FileMemberRepository(Path directory) {
+        this(directory, 1_000_000);
+    }
+
+    public FileMemberRepository(Path directory, int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("snapshotInterval은 0보다 커야 합니다.");
+        }
+
+        try {
+            Files.createDirectories(directory);
+            this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+            this.walPath = directory.resolve(LOG_FILE);
+            this.rotatedWalPath = directory.resolve(ROTATED_LOG_FILE);
+            this.snapshotInterval = snapshotInterval;
+            this.store = loadSnapshot(snapshotPath);
+            // 스냅샷을 다 쓰기 전에 멈췄으면 돌려 놓은 로그가 남아 있다. 지금 로그보다 먼저 적용한다.
+            if (Files.exists(rotatedWalPath)) {
+                try (FileChannel rotated = FileChannel.open(rotatedWalPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    replayLog(rotated);
+                }
+            }
+            this.wal = openWal();
+            this.logSize = replayLog(wal);
+            this.appendedPosition = logSize;
+            this.durablePosition = logSize;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void save(Member member) {
+        ByteBuffer record = ByteBuffer.allocate(logRecordSize(member));
+        writeLogRecord(record, member);
+        record.flip();
+
+        long position;
+        boolean scheduleSnapshot;
+        synchronized (writeLock) {
+            ensureOpen();
+            append(record);
+            store.put(member.getId(), member);
+            scheduleSnapshot = countRecords(1);
+            position = appendedPosition;
+        }
+        awaitDurable(position);
+        if (scheduleSnapshot) {
+            scheduleSnapshot();
+        }
+    }
+
+    // 기록을 하나의 버퍼로 모아서 한 번 쓰고 한 번 force 한다.
+    @Override
+    public void saveAll(Collection<Member> members) {
+        int size = 0;
+        for (Member member : members) {
+            size += logRecordSize(member);
+        }
+        ByteBuffer records = ByteBuffer.allocate(size);
+        for (Member member : members) {
+            writeLogRecord(records, member);
+        }
+        records.flip();
+
+        long position;
+        boolean scheduleSnapshot;
+        synchronized (writeLock) {
+            ensureOpen();
+            append(records);
+            for (Member member : members) {
+                store.put(member.getId(), member);
+            }
+            scheduleSnapshot = countRecords(members.size());
+            position = appendedPosition;
+        }
+        awaitDurable(position);
+        if (scheduleSnapshot) {
+            scheduleSnapshot();
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        return memberId == null ? null : store.get(memberId);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Member> action) {
+        store.values().forEach(action);
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * 지금까지 저장된 회원 전체를 스냅샷으로 쓰고 그 전의 로그를 지운다. 다 쓸 때까지 기다린다.
+     * 임시 파일에 쓰고 force 한 다음 이름을 바꾸기 때문에 도중에 죽어도 이전 스냅샷과 로그는 그대로 남는다.
+     */
+    public void snapshot() {
+        if (!takeSnapshot()) {
+            throw new IllegalStateException("닫힌 리포지토리입니다.");
+        }
+    }
+
+    // 이미 닫혔으면 아무것도 하지 않고 false를 반환한다.
+    private boolean takeSnapshot() {
+        synchronized (snapshotLock) {
+            synchronized (writeLock) {
+                if (closed) {
+                    return false;
+                }
+                // 앞선 스냅샷이 실패해서 돌려 놓은 로그가 남아 있으면 지금 로그는 그대로 두고 스냅샷만 다시 쓴다.
+                if (!Files.exists(rotatedWalPath)) {
+                    rotateLog();
+                }
+                recordsSinceSnapshot = 0;
+                snapshotScheduled = false;
+            }
+            // 로그를 바꾼 뒤라 저장은 새 로그로 계속된다. 그 사이에 저장된 회원이 스냅샷에 들어가도
+            // 새 로그를 스냅샷 뒤에 다시 적용하므로 결과는 같다.
+            try {
+                writeSnapshot();
+                Files.deleteIfExists(rotatedWalPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 진행 중인 스냅샷이 끝나기를 기다린 뒤 로그를 force 하고 닫는다.
+     */
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (snapshotLock) {
+            synchronized (writeLock) {
+                synchronized (flushLock) {
+                    try {
+                        wal.force(false);
+                        wal.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    durablePosition = appendedPosition;
+                }
+            }
+        }
+    }
+
+    // writeLock을 잡은 상태에서 호출한다.
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("닫힌 리포지토리입니다.");
+        }
+    }
+
+    // writeLock을 잡은 상태에서 호출한다. 스냅샷을 새로 예약해야 하면 true
+    private boolean countRecords(int count) {
+        recordsSinceSnapshot += count;
+        if (recordsSinceSnapshot < snapshotInterval || snapshotScheduled) {
+            return false;
+        }
+        snapshotScheduled = true;
+        return true;
+    }
+
+    private void scheduleSnapshot() {
+        try {
+            snapshotExecutor.execute(() -> {
+                try {
+                    // 그 사이에 닫혔으면 건너뛴다. 로그가 남아 있으므로 다음에 열 때 복구된다.
+                    takeSnapshot();
+                } catch (RuntimeException e) {
+                    // 로그가 남아 있으므로 잃는 회원은 없다. 다음에 로그가 쌓이면 다시 시도한다.
+                    log.error("회원 스냅샷을 쓰지 못했습니다. {}", snapshotPath, e);
+                    synchronized (writeLock) {
+                        snapshotScheduled = false;
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 저장하는 사이에 닫혔다. 기록은 이미 로그에 있다.
+        }
+    }
+
+    // writeLock을 잡은 상태에서 호출한다. 지금 로그를 force 하고 members.wal.old로 돌린 다음 빈 로그를 연다.
+    private void rotateLog() {
+        synchronized (flushLock) {
+            try {
+                wal.force(false);
+                wal.close();
+                Files.move(walPath, rotatedWalPath, StandardCopyOption.ATOMIC_MOVE);
+                wal = openWal();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            logSize = 0;
+            durablePosition = appendedPosition;
+        }
+    }
+
+    private FileChannel openWal() throws IOException {
+        return FileChannel.open(walPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // writeLock을 잡은 상태에서 호출한다.
+    private void append(ByteBuffer records) {
+        try {
+            while (records.hasRemaining()) {
+                logSize += wal.write(records, logSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        appendedPosition += records.limit();
+    }
+
+    // 이미 다른 쓰레드가 force 해 줬으면 바로 반환한다.
+    private void awaitDurable(long position) {
+        if (durablePosition >= position) {
+            return;
+        }
+
+        synchronized (flushLock) {
+            if (durablePosition >= position) {
+                return;
+            }
+            long target = appendedPosition;
+            try {
+                wal.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            durablePosition = target;
+        }
+    }
+
+    // snapshotLock을 잡은 상태에서 호출한다. 저장은 계속되므로 회원 목록을 먼저 복사해서 크기와 내용이 어긋나지 않게 한다.
+    private void writeSnapshot() throws IOException {
+        List<Member> members = new ArrayList<>(store.values());
+        long bodySize = 0;
+        for (Member member : members) {
+            bodySize += MemberCodec.encodedSize(member);
+        }
+        long fileSize = SNAPSHOT_HEADER_SIZE + bodySize;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException("스냅샷 크기가 2GB를 넘습니다. size = " + fileSize);
+        }
+
+        Path tempPath = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.position(SNAPSHOT_HEADER_SIZE);
+            for (Member member : members) {
+                MemberCodec.write(buffer, member);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(SNAPSHOT_HEADER_SIZE, (int) bodySize));
+            buffer.putInt(0, SNAPSHOT_MAGIC);
+            buffer.putLong(4, members.size());
+            buffer.putLong(12, crc.getValue());
+            buffer.force();
+        }
+        Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<Long, Member> loadSnapshot(Path snapshotPath) throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return new ConcurrentHashMap<>();
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < SNAPSHOT_HEADER_SIZE || buffer.getInt(0) != SNAPSHOT_MAGIC) {
+                throw new IllegalStateException("스냅샷 파일 형식이 올바르지 않습니다. " + snapshotPath);
+            }
+
+            long count = buffer.getLong(4);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(SNAPSHOT_HEADER_SIZE, buffer.limit() - SNAPSHOT_HEADER_SIZE));
+            if (crc.getValue() != buffer.getLong(12)) {
+                throw new IllegalStateException("스냅샷 파일이 손상되었습니다. " + snapshotPath);
+            }
+
+            // 한 번에 필요한 크기로 만들어서 복구 중에 맵이 커지지 않게 한다.
+            Map<Long, Member> store = new ConcurrentHashMap<>((int) Math.min(Integer.MAX_VALUE, count * 4 / 3 + 1));
+            buffer.position(SNAPSHOT_HEADER_SIZE);
+            for (long i = 0; i < count; i++) {
+                Member member = MemberCodec.read(buffer);
+                store.put(member.getId(), member);
+            }
+            return store;
+        }
+    }
+
+    // 로그를 끝까지 다시 적용하고 마지막 온전한 기록의 끝 위치를 반환한다. 그 뒤의 깨진 기록은 잘라낸다.
+    private long replayLog(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return 0;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("로그 크기가 2GB를 넘습니다. size = " + size);
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32 crc = new CRC32();
+        int position = 0;
+        while (buffer.limit() - position >= LOG_RECORD_HEADER_SIZE) {
+            int length = buffer.getInt(position);
+            long checksum = buffer.getLong(position + 4);
+            int start = position + LOG_RECORD_HEADER_SIZE;
+            if (length < MemberCodec.HEADER_SIZE || length > buffer.limit() - start) {
+                break;
+            }
+
+            ByteBuffer payload = buffer.slice(start, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) {
+                break;
+            }
+
+            Member member = MemberCodec.read(payload);
+            store.put(member.getId(), member);
+            recordsSinceSnapshot++;
+            position = start + length;
+        }
+
+        if (position < size) {
+            channel.truncate(position);
+            channel.force(true);
+        }
+        return position;
+    }
+
+    private static int logRecordSize(Member member) {
+        return LOG_RECORD_HEADER_SIZE + MemberCodec.encodedSize(member);
+    }
+
+    // [길이(4)][CRC32(8)][회원 데이터]
+    private static void writeLogRecord(ByteBuffer buffer, Member member) {
+        int start = buffer.position();
+        int length = MemberCodec.encodedSize(member);
+        buffer.position(start + LOG_RECORD_HEADER_SIZE);
+        MemberCodec.write(buffer, member);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start + LOG_RECORD_HEADER_SIZE, length);
+        buffer.putInt(start, length);
+        buffer.putLong(start + 4, crc.getValue());
+    }
+}
@@ -0,0 +1,69 @@
+package hello.core.member;
+
+/**
+ * TinyLFU 입장 판단에 쓰는 Count-Min Sketch
+ *
+ * 키마다 4개의 카운터 중 가장 작은 값을 빈도로 본다. 카운터는 4비트(최대 15)이고,
+ * 증가 횟수가 sampleSize에 닿으면 모든 카운터를 절반으로 줄여서 오래된 인기도를 잊는다.
+ * 쓰레드에 안전하지 않으므로 사용하는 쪽에서 동기화한다.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    // long 하나에 4비트 카운터 16개
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int counters = Integer.highestOneBit(Math.max(maximumSize, 8) - 1) << 1;
+        this.table = new long[Math.max(1, counters / 4)];
+        this.tableMask = table.length - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 8);
+    }
+
+    int frequency(long key) {
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(key, i);
+            int offset = counterOffset(key, i);
+            frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+        }
+        return frequency;
+    }
+
+    void increment(long key) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(key, i);
+            int offset = counterOffset(key, i);
+            if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(long key, int i) {
+        long hash = (key + SEEDS[i]) * SEEDS[i];
+        hash += hash >>> 32;
+        return (int) hash & tableMask;
+    }
+
+    private int counterOffset(long key, int i) {
+        long hash = key * SEEDS[(i + 1) & 3];
+        return (int) ((hash >>> 60) << 2);
+    }
+}
@@ -0,0 +1,212 @@
+package hello.core.member;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 다른 MemberRepository 앞에 등급/이름 인덱스를 붙이는 리포지토리
+ *
+ * 회원마다 저장된 순서대로 행 번호를 주고, 등급별로 행 번호 비트맵(long[])을 유지한다.
+ * 이름은 TreeMap으로 정렬해 두고 접두사 범위만 잘라서 찾는다. 그래서 조회할 때 전체 회원을 훑지 않는다.
+ *
+ * 저장된 Member의 setGrade, setName이 호출되면 인덱스를 고치고 위임 리포지토리에도 다시 저장한다.
+ * 한 Member 객체는 마지막으로 저장된 인덱스 리포지토리 하나만 따라간다.
+ * 인덱스는 메모리에만 있으므로 위임 리포지토리가 디스크에 있더라도 재시작하면 다시 저장해야 한다.
+ */
+public class IndexedMemberRepository implements MemberRepository {
+    private static final Grade[] GRADES = Grade.values();
+
+    private final MemberRepository delegate;
+    private final MemberChangeListener changeListener = this::reindex;
+    // 위임 리포지토리 저장과 인덱스 변경의 순서를 맞추기 위해 쓰기는 모두 쓰기 락 안에서 한다.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    private Member[] memberByRow = new Member[16];
+    // 인덱스에 들어가 있는 값. setter로 Member가 바뀐 뒤에도 이전 값을 지울 수 있게 따로 둔다.
+    private String[] indexedNames = new String[16];
+    private Grade[] indexedGrades = new Grade[16];
+    private int rowCount;
+
+    // 등급별 비트맵. 행 번호 n은 words[n >>> 6]의 (n & 63)번째 비트이다.
+    private final long[][] gradeBitmaps = new long[GRADES.length][1];
+    private final int[] gradeCounts = new int[GRADES.length];
+    private final NavigableMap<String, Set<Integer>> rowsByName = new TreeMap<>();
+
+    public IndexedMemberRepository(MemberRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void save(Member member) {
+        member.setChangeListener(changeListener);
+        lock.writeLock().lock();
+        try {
+            delegate.save(member);
+            index(member);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Member> members) {
+        for (Member member : members) {
+            member.setChangeListener(changeListener);
+        }
+        lock.writeLock().lock();
+        try {
+            delegate.saveAll(members);
+            for (Member member : members) {
+                index(member);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        return delegate.findById(memberId);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Member> action) {
+        delegate.forEach(action);
+    }
+
+    public List<Member> findByGrade(Grade grade) {
+        lock.readLock().lock();
+        try {
+            long[] words = gradeBitmaps[grade.ordinal()];
+            List<Member> members = new ArrayList<>(gradeCounts[grade.ordinal()]);
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    int row = (i << 6) + Long.numberOfTrailingZeros(word);
+                    members.add(memberByRow[row]);
+                    word &= word - 1;
+                }
+            }
+            return members;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countByGrade(Grade grade) {
+        lock.readLock().lock();
+        try {
+            return gradeCounts[grade.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param prefix
+     * @return 이름이 prefix로 시작하는 회원, 이름순
+     */
+    public List<Member> findByNamePrefix(String prefix) {
+        lock.readLock().lock();
+        try {
+            List<Member> members = new ArrayList<>();
+            for (Set<Integer> rows : rowsByName.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                for (int row : rows) {
+                    members.add(memberByRow[row]);
+                }
+            }
+            return members;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reindex(Member member) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowById.get(member.getId());
+            // 같은 id로 다른 객체가 저장된 뒤라면 예전 객체의 변경은 무시한다.
+            if (row == null || memberByRow[row] != member) {
+                return;
+            }
+            delegate.save(member);
+            unindex(row);
+            addToIndexes(row, member);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 아래 메서드들은 쓰기 락을 잡은 상태에서 호출한다.
+    private void index(Member member) {
+        Integer row = rowById.get(member.getId());
+        if (row == null) {
+            row = rowCount++;
+            rowById.put(member.getId(), row);
+            ensureRowCapacity(rowCount);
+        } else {
+            unindex(row);
+        }
+        memberByRow[row] = member;
+        addToIndexes(row, member);
+    }
+
+    private void addToIndexes(int row, Member member) {
+        Grade grade = member.getGrade();
+        String name = member.getName();
+        if (grade != null) {
+            gradeBitmaps[grade.ordinal()][row >>> 6] |= 1L << row;
+            gradeCounts[grade.ordinal()]++;
+        }
+        if (name != null) {
+            rowsByName.computeIfAbsent(name, key -> new TreeSet<>()).add(row);
+        }
+        indexedGrades[row] = grade;
+        indexedNames[row] = name;
+    }
+
+    private void unindex(int row) {
+        Grade grade = indexedGrades[row];
+        String name = indexedNames[row];
+        if (grade != null) {
+            gradeBitmaps[grade.ordinal()][row >>> 6] &= ~(1L << row);
+            gradeCounts[grade.ordinal()]--;
+        }
+        if (name != null) {
+            Set<Integer> rows = rowsByName.get(name);
+            rows.remove(row);
+            if (rows.isEmpty()) {
+                rowsByName.remove(name);
+            }
+        }
+        indexedGrades[row] = null;
+        indexedNames[row] = null;
+    }
+
+    private void ensureRowCapacity(int rows) {
+        if (rows > memberByRow.length) {
+            int capacity = memberByRow.length * 2;
+            memberByRow = Arrays.copyOf(memberByRow, capacity);
+            indexedNames = Arrays.copyOf(indexedNames, capacity);
+            indexedGrades = Arrays.copyOf(indexedGrades, capacity);
+        }
+        int words = (rows + 63) >>> 6;
+        for (int grade = 0; grade < GRADES.length; grade++) {
+            if (gradeBitmaps[grade].length < words) {
+                gradeBitmaps[grade] = Arrays.copyOf(gradeBitmaps[grade], Math.max(words, gradeBitmaps[grade].length * 2));
+            }
+        }
+    }
+}
@@ -4,6 +4,8 @@ public class Member {
     private Long id;
     private String name;
     private Grade grade;
+    // 인덱스를 가진 리포지토리에 저장되었을 때만 설정된다.
+    private MemberChangeListener changeListener;
 
     public Member(Long id, String name, Grade grade) {
         this.id = id;
@@ -25,6 +27,7 @@ public class Member {
 
     public void setName(String name) {
         this.name = name;
+        notifyChanged();
     }
 
     public Grade getGrade() {
@@ -33,5 +36,17 @@ public class Member {
 
     public void setGrade(Grade grade) {
         this.grade = grade;
+        notifyChanged();
+    }
+
+    void setChangeListener(MemberChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void notifyChanged() {
+        MemberChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.memberChanged(this);
+        }
     }
 }
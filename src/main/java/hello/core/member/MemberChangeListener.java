@@ -0,0 +1,8 @@
+package hello.core.member;
+
+/**
+ * 저장된 Member의 이름이나 등급이 setter로 바뀌었을 때 리포지토리가 인덱스를 고치기 위한 콜백
+ */
+interface MemberChangeListener {
+    void memberChanged(Member member);
+}
@@ -0,0 +1,92 @@
+package hello.core.member;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 회원 한 명을 바이트로 바꾸는 형식
+ * [id(8)][등급 ordinal(1), null이면 -1][이름 길이(4), null이면 -1][이름 UTF-8 바이트]
+ */
+final class MemberCodec {
+    private static final byte NULL_GRADE = -1;
+    private static final int NULL_LENGTH = -1;
+    private static final Grade[] GRADES = Grade.values();
+
+    static final int HEADER_SIZE = 8 + 1 + 4;
+
+    private MemberCodec() {
+    }
+
+    static int encodedSize(Member member) {
+        return HEADER_SIZE + (member.getName() == null ? 0 : utf8Length(member.getName()));
+    }
+
+    static void write(ByteBuffer buffer, Member member) {
+        buffer.putLong(member.getId());
+        buffer.put(member.getGrade() == null ? NULL_GRADE : (byte) member.getGrade().ordinal());
+        if (member.getName() == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+
+        String name = member.getName();
+        if (isAscii(name)) {
+            // ASCII 이름은 바이트 배열을 만들지 않고 바로 쓴다.
+            buffer.putInt(name.length());
+            for (int i = 0; i < name.length(); i++) {
+                buffer.put((byte) name.charAt(i));
+            }
+            return;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static Member read(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        byte grade = buffer.get();
+        int nameLength = buffer.getInt();
+        if (grade < NULL_GRADE || grade >= GRADES.length || nameLength < NULL_LENGTH || nameLength > buffer.remaining()) {
+            throw new IllegalStateException("회원 데이터가 손상되었습니다. id = " + id);
+        }
+
+        String name = null;
+        if (nameLength != NULL_LENGTH) {
+            byte[] bytes = new byte[nameLength];
+            buffer.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new Member(id, name, grade == NULL_GRADE ? null : GRADES[grade]);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 크기를 먼저 알아야 할 때 바이트 배열을 만들지 않고 UTF-8 길이만 센다.
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1; // 짝이 없는 surrogate는 getBytes에서 '?'로 바뀐다.
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
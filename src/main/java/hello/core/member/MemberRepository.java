@@ -1,6 +1,45 @@
 package hello.core.member;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface MemberRepository {
     void save(Member member);
     Member findById(Long memberId);
+
+    /**
+     * long id로 조회한다. 기본 구현은 Long으로 박싱해서 findById(Long)을 부르므로,
+     * 박싱 없이 찾을 수 있는 구현체는 재정의한다.
+     */
+    default Member findById(long memberId) {
+        return findById(Long.valueOf(memberId));
+    }
+
+    /**
+     * 여러 회원을 한 번에 저장한다. 구현체는 공간 확보와 락을 한 번에 처리하도록 재정의한다.
+     */
+    default void saveAll(Collection<Member> members) {
+        for (Member member : members) {
+            save(member);
+        }
+    }
+
+    /**
+     * @param memberIds
+     * @return memberIds와 같은 순서의 회원 목록, 없는 회원 자리는 null
+     */
+    default List<Member> findAllById(long[] memberIds) {
+        List<Member> members = new ArrayList<>(memberIds.length);
+        for (long memberId : memberIds) {
+            members.add(findById(memberId));
+        }
+        return members;
+    }
+
+    /**
+     * 저장된 회원 전체를 한 명씩 넘겨준다. 순서는 구현체마다 다르다.
+     */
+    void forEach(Consumer<? super Member> action);
 }
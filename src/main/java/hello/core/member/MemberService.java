@@ -1,6 +1,12 @@
 package hello.core.member;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface MemberService {
     void join(Member member);
     Member findMember(Long memberId);
+
+    void joinAll(Collection<Member> members);
+    List<Member> findMembers(long[] memberIds);
 }
@@ -3,6 +3,9 @@ package hello.core.member;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
+
 @Component
 public class MemberServiceImpl implements MemberService {
     private MemberRepository memberRepository;
@@ -26,4 +29,14 @@ public class MemberServiceImpl implements MemberService {
     public Member findMember(Long memberId) {
         return memberRepository.findById(memberId);
     }
+
+    @Override
+    public void joinAll(Collection<Member> members) {
+        memberRepository.saveAll(members);
+    }
+
+    @Override
+    public List<Member> findMembers(long[] memberIds) {
+        return memberRepository.findAllById(memberIds);
+    }
 }
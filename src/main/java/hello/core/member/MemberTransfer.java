@@ -0,0 +1,179 @@
+package hello.core.member;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 회원 전체를 바이너리 파일로 내보내고 다시 읽어 들인다.
+ *
+ * 파일 형식: [매직(4)][버전(4)] 다음에 청크가 이어진다.
+ * 청크: [데이터 길이(4)][회원 수(4)][회원 데이터...], 회원 데이터는 MemberCodec 형식이다.
+ *
+ * 내보낼 때는 청크 크기만큼의 direct 버퍼 하나를 계속 재사용하므로 회원 수와 상관없이 메모리를 일정하게 쓴다.
+ * 읽어 들일 때는 청크 위치만 먼저 훑은 다음, 청크마다 파일을 메모리 맵으로 열어 병렬로 풀고 saveAll로 한 번에 넣는다.
+ */
+public final class MemberTransfer {
+    private static final int MAGIC = 0x4D424558; // "MBEX"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int CHUNK_HEADER_SIZE = 8;
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private MemberTransfer() {
+    }
+
+    /**
+     * @return 내보낸 회원 수
+     */
+    public static long exportTo(MemberRepository repository, Path file) {
+        return exportTo(repository, file, DEFAULT_CHUNK_SIZE);
+    }
+
+    static long exportTo(MemberRepository repository, Path file, int chunkSize) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(channel, header);
+
+            ChunkWriter writer = new ChunkWriter(channel, chunkSize);
+            repository.forEach(writer::write);
+            writer.flush();
+            return writer.total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return 읽어 들인 회원 수
+     */
+    public static long importFrom(Path file, MemberRepository repository) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IllegalStateException("회원 파일 형식이 올바르지 않습니다. " + file);
+            }
+
+            List<long[]> chunks = findChunks(channel);
+            LongAdder imported = new LongAdder();
+            chunks.parallelStream().forEach(chunk -> {
+                List<Member> members = readChunk(channel, chunk[0], (int) chunk[1], (int) chunk[2]);
+                repository.saveAll(members);
+                imported.add(members.size());
+            });
+            return imported.sum();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 청크 머리만 읽어서 {데이터 시작 위치, 길이, 회원 수} 목록을 만든다.
+    private static List<long[]> findChunks(FileChannel channel) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+        long size = channel.size();
+        long position = FILE_HEADER_SIZE;
+        while (position < size) {
+            chunkHeader.clear();
+            readFully(channel, chunkHeader, position);
+            int length = chunkHeader.getInt(0);
+            int count = chunkHeader.getInt(4);
+            long start = position + CHUNK_HEADER_SIZE;
+            if (length < 0 || count < 0 || start + length > size) {
+                throw new IllegalStateException("회원 파일이 잘렸거나 손상되었습니다. position = " + position);
+            }
+            chunks.add(new long[]{start, length, count});
+            position = start + length;
+        }
+        return chunks;
+    }
+
+    private static List<Member> readChunk(FileChannel channel, long start, int length, int count) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            List<Member> members = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                members.add(MemberCodec.read(buffer));
+            }
+            return members;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalStateException("회원 파일이 잘렸습니다.");
+            }
+        }
+    }
+
+    private static final class ChunkWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private int count;
+        private long total;
+
+        private ChunkWriter(FileChannel channel, int chunkSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(chunkSize);
+            buffer.position(CHUNK_HEADER_SIZE);
+        }
+
+        private void write(Member member) {
+            int size = MemberCodec.encodedSize(member);
+            if (size > buffer.remaining()) {
+                flush();
+            }
+            if (size > buffer.remaining()) {
+                // 청크보다 큰 회원은 따로 청크 하나로 쓴다.
+                writeChunk(ByteBuffer.allocate(CHUNK_HEADER_SIZE + size).position(CHUNK_HEADER_SIZE), member);
+                return;
+            }
+            MemberCodec.write(buffer, member);
+            count++;
+            total++;
+        }
+
+        private void writeChunk(ByteBuffer single, Member member) {
+            MemberCodec.write(single, member);
+            single.putInt(0, single.position() - CHUNK_HEADER_SIZE).putInt(4, 1).flip();
+            try {
+                writeFully(channel, single);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            total++;
+        }
+
+        private void flush() {
+            if (count == 0) {
+                return;
+            }
+            buffer.putInt(0, buffer.position() - CHUNK_HEADER_SIZE).putInt(4, count).flip();
+            try {
+                writeFully(channel, buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear().position(CHUNK_HEADER_SIZE);
+            count = 0;
+        }
+    }
+}
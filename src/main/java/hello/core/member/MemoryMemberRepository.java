@@ -2,15 +2,18 @@ package hello.core.member;
 
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 @Component
 public class MemoryMemberRepository implements MemberRepository {
     // HashMap을 사용하는 것은 동시성 문제가 있어서 실무에서는 사용하지 않음.
     // https://www.inflearn.com/questions/347336/threadlocal-%EB%8F%99%EC%8B%9C%EC%84%B1-%EC%9D%B4%EC%8A%88-arraylist-hashmap-hashset
     // https://applepick.tistory.com/124
-    private static Map<Long, Member> store = new HashMap<>();
+    // 그래서 ConcurrentHashMap을 사용한다.
+    // 조회는 락 없이 volatile 읽기로 처리되고, 저장은 빈 버킷이면 CAS, 아니면 해당 버킷만 잠근다.
+    private static Map<Long, Member> store = new ConcurrentHashMap<>();
 
     @Override
     public void save(Member member) {
@@ -19,6 +22,17 @@ public class MemoryMemberRepository implements MemberRepository {
 
     @Override
     public Member findById(Long memberId) {
-        return store.get(memberId);
+        // ConcurrentHashMap은 null 키로 조회하면 NPE를 던진다.
+        return memberId == null ? null : store.get(memberId);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Member> action) {
+        store.values().forEach(action);
+    }
+
+    //테스트 용도
+    public void clearStore() {
+        store.clear();
     }
 }
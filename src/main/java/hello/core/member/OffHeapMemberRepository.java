@@ -0,0 +1,277 @@
+package hello.core.member;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * 회원 정보를 힙 밖(direct ByteBuffer)에 저장하는 리포지토리
+ *
+ * Map을 사용하면 회원 한 명마다 Long 키, Member, String, 맵 노드 객체가 힙에 생긴다.
+ * 회원이 수천만 명이 되면 힙 사용량과 GC 시간이 문제가 되므로 primitive long 키로 오픈 어드레싱(선형 탐사)을 한다.
+ *
+ * 슬롯 테이블: [id(8)][이름 오프셋(4)][이름 길이(4)][등급(1)][사용 여부(1)][패딩(6)]
+ * 이름 영역: UTF-8 바이트를 뒤에 이어 붙인다. 같은 id로 다시 저장하면 이전 이름 바이트는 재사용하지 않는다.
+ *
+ * findById는 저장된 값으로 새 Member를 만들어 돌려준다. 반환된 Member를 수정해도 저장소에는 반영되지 않으니 다시 save 해야 한다.
+ * 쓰기는 락으로 직렬화하고, 조회는 StampedLock의 낙관적 읽기로 락 없이 처리한다.
+ */
+public class OffHeapMemberRepository implements MemberRepository {
+    private static final int SLOT_SIZE = 24;
+    private static final int ID = 0;
+    private static final int NAME_OFFSET = 8;
+    private static final int NAME_LENGTH = 12;
+    private static final int GRADE = 16;
+    private static final int USED = 17;
+
+    private static final int NULL_LENGTH = -1;
+    private static final byte NULL_GRADE = -1;
+    private static final double MAX_LOAD_FACTOR = 0.6;
+    private static final int MAX_SLOTS = Integer.MAX_VALUE / SLOT_SIZE;
+    private static final Grade[] GRADES = Grade.values();
+
+    private final StampedLock lock = new StampedLock();
+    private ByteBuffer table;
+    private ByteBuffer names;
+    private int slotCount;
+    private int size;
+    private int namesPosition;
+
+    public OffHeapMemberRepository() {
+        this(1024);
+    }
+
+    public OffHeapMemberRepository(int expectedMembers) {
+        this.slotCount = slotCountFor(expectedMembers);
+        this.table = ByteBuffer.allocateDirect(slotCount * SLOT_SIZE);
+        this.names = ByteBuffer.allocateDirect(Math.max(1024, expectedMembers * 8));
+    }
+
+    @Override
+    public void save(Member member) {
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(size + 1);
+            put(member);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        if (memberId == null) {
+            return null;
+        }
+
+        long id = memberId;
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Member member = read(id, true);
+            if (lock.validate(stamp)) {
+                return member;
+            }
+        }
+
+        // 읽는 도중 쓰기가 있었으면 읽기 락을 잡고 다시 읽는다.
+        stamp = lock.readLock();
+        try {
+            return read(id, false);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // 테이블은 한 번만 늘리고 쓰기 락도 한 번만 잡는다.
+    @Override
+    public void saveAll(Collection<Member> members) {
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(size + members.size());
+            for (Member member : members) {
+                put(member);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public List<Member> findAllById(long[] memberIds) {
+        List<Member> members = new ArrayList<>(memberIds.length);
+        long stamp = lock.readLock();
+        try {
+            for (long memberId : memberIds) {
+                members.add(read(memberId, false));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return members;
+    }
+
+    // 순회하는 동안 읽기 락을 잡고 있으므로 저장은 기다린다.
+    @Override
+    public void forEach(Consumer<? super Member> action) {
+        long stamp = lock.readLock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                int base = slot * SLOT_SIZE;
+                if (table.get(base + USED) != 0) {
+                    action.accept(toMember(table.getLong(base + ID), table, names, base, false));
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // 낙관적 읽기 중에는 값이 깨져 있을 수 있으므로 범위를 벗어나면 그냥 null을 돌려주고 validate에서 걸러지게 한다.
+    private Member read(long id, boolean optimistic) {
+        ByteBuffer table = this.table;
+        ByteBuffer names = this.names;
+        int slotCount = table.capacity() / SLOT_SIZE;
+
+        int slot = indexFor(id, slotCount);
+        for (int probe = 0; probe < slotCount; probe++) {
+            int base = slot * SLOT_SIZE;
+            if (table.get(base + USED) == 0) {
+                return null;
+            }
+            if (table.getLong(base + ID) == id) {
+                return toMember(id, table, names, base, optimistic);
+            }
+            slot = (slot + 1) & (slotCount - 1);
+        }
+        return null;
+    }
+
+    private Member toMember(long id, ByteBuffer table, ByteBuffer names, int base, boolean optimistic) {
+        int nameOffset = table.getInt(base + NAME_OFFSET);
+        int nameLength = table.getInt(base + NAME_LENGTH);
+        byte grade = table.get(base + GRADE);
+
+        String name = null;
+        if (nameLength != NULL_LENGTH) {
+            if (optimistic && (nameOffset < 0 || nameLength < 0 || (long) nameOffset + nameLength > names.capacity())) {
+                return null;
+            }
+            byte[] bytes = new byte[nameLength];
+            names.get(nameOffset, bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        if (optimistic && grade >= GRADES.length) {
+            return null;
+        }
+        return new Member(id, name, grade == NULL_GRADE ? null : GRADES[grade]);
+    }
+
+    // 쓰기 락을 잡은 상태에서만 호출한다.
+    private void put(Member member) {
+        long id = member.getId();
+        int base = findSlot(table, slotCount, id);
+        if (table.get(base + USED) == 0) {
+            size++;
+        }
+
+        table.putLong(base + ID, id);
+        writeName(base, member.getName());
+        table.put(base + GRADE, member.getGrade() == null ? NULL_GRADE : (byte) member.getGrade().ordinal());
+        table.put(base + USED, (byte) 1);
+    }
+
+    private void writeName(int base, String name) {
+        if (name == null) {
+            table.putInt(base + NAME_LENGTH, NULL_LENGTH);
+            return;
+        }
+
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        ensureNamesCapacity(bytes.length);
+        names.put(namesPosition, bytes);
+        table.putInt(base + NAME_OFFSET, namesPosition);
+        table.putInt(base + NAME_LENGTH, bytes.length);
+        namesPosition += bytes.length;
+    }
+
+    // id가 있는 슬롯이나 처음 만나는 빈 슬롯의 시작 위치
+    private static int findSlot(ByteBuffer table, int slotCount, long id) {
+        int slot = indexFor(id, slotCount);
+        while (true) {
+            int base = slot * SLOT_SIZE;
+            if (table.get(base + USED) == 0 || table.getLong(base + ID) == id) {
+                return base;
+            }
+            slot = (slot + 1) & (slotCount - 1);
+        }
+    }
+
+    // 여러 명을 한꺼번에 넣을 때도 테이블을 한 번만 늘리도록 필요한 크기를 받는다.
+    private void ensureCapacity(int expectedSize) {
+        if (expectedSize <= slotCount * MAX_LOAD_FACTOR) {
+            return;
+        }
+
+        int newSlotCount = slotCountFor(expectedSize);
+        ByteBuffer newTable = ByteBuffer.allocateDirect(newSlotCount * SLOT_SIZE);
+        for (int slot = 0; slot < slotCount; slot++) {
+            int base = slot * SLOT_SIZE;
+            if (table.get(base + USED) == 0) {
+                continue;
+            }
+            int newBase = findSlot(newTable, newSlotCount, table.getLong(base + ID));
+            newTable.put(newBase, table, base, SLOT_SIZE);
+        }
+        table = newTable;
+        slotCount = newSlotCount;
+    }
+
+    private void ensureNamesCapacity(int additional) {
+        long required = (long) namesPosition + additional;
+        if (required <= names.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("회원 이름 저장 공간이 가득 찼습니다.");
+        }
+
+        int newCapacity = (int) Math.min(Integer.MAX_VALUE, Math.max(required, (long) names.capacity() * 2));
+        ByteBuffer newNames = ByteBuffer.allocateDirect(newCapacity);
+        newNames.put(0, names, 0, namesPosition);
+        names = newNames;
+    }
+
+    private static int slotCountFor(int expectedMembers) {
+        long needed = (long) Math.ceil(Math.max(expectedMembers, 16) / MAX_LOAD_FACTOR);
+        long slots = Long.highestOneBit(needed - 1) << 1;
+        if (slots > MAX_SLOTS) {
+            throw new IllegalStateException("회원 수가 너무 많습니다. expectedMembers = " + expectedMembers);
+        }
+        return (int) slots;
+    }
+
+    private static int indexFor(long id, int slotCount) {
+        // MurmurHash3의 마무리 단계로 연속된 id도 고르게 퍼지게 한다.
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & (slotCount - 1);
+    }
+}
@@ -0,0 +1,225 @@
+package hello.core.member;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * 회원 id의 해시로 N개의 샤드에 나눠 저장하는 리포지토리
+ *
+ * 샤드마다 자기 해시 테이블(long[] 키와 Member[] 값을 쓰는 선형 탐사 테이블)과 StampedLock을 가지고 있어서
+ * 한 샤드에는 한 번에 한 쓰레드만 쓴다. (single-writer)
+ * 서로 다른 샤드의 회원은 동시에 저장할 수 있으므로 샤드 수를 코어 수에 맞추면 쓰기 경합이 줄어든다.
+ * 키를 long 그대로 저장하므로 findById(long)은 박싱 없이 조회한다.
+ */
+public class ShardedMemberRepository implements MemberRepository {
+    private final Shard[] shards;
+
+    public ShardedMemberRepository(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount는 0보다 커야 합니다.");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @Override
+    public void save(Member member) {
+        shardFor(member.getId()).save(member);
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        if (memberId == null) {
+            return null;
+        }
+        return findById(memberId.longValue());
+    }
+
+    @Override
+    public Member findById(long memberId) {
+        return shardFor(memberId).findById(memberId);
+    }
+
+    // 샤드별로 나눈 다음 샤드마다 락을 한 번만 잡는다.
+    @Override
+    public void saveAll(Collection<Member> members) {
+        List<List<Member>> membersByShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            membersByShard.add(new ArrayList<>());
+        }
+        for (Member member : members) {
+            membersByShard.get(indexFor(member.getId())).add(member);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (!membersByShard.get(i).isEmpty()) {
+                shards[i].saveAll(membersByShard.get(i));
+            }
+        }
+    }
+
+    @Override
+    public List<Member> findAllById(long[] memberIds) {
+        int[] counts = new int[shards.length];
+        int[] shardOf = new int[memberIds.length];
+        for (int i = 0; i < memberIds.length; i++) {
+            shardOf[i] = indexFor(memberIds[i]);
+            counts[shardOf[i]]++;
+        }
+
+        // 샤드별 위치 목록을 만들어서 샤드마다 읽기 락을 한 번만 잡는다.
+        int[][] positions = new int[shards.length][];
+        for (int s = 0; s < shards.length; s++) {
+            positions[s] = new int[counts[s]];
+        }
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < memberIds.length; i++) {
+            positions[shardOf[i]][counts[shardOf[i]]++] = i;
+        }
+
+        Member[] found = new Member[memberIds.length];
+        for (int s = 0; s < shards.length; s++) {
+            if (positions[s].length > 0) {
+                shards[s].findAll(memberIds, positions[s], found);
+            }
+        }
+        return Arrays.asList(found);
+    }
+
+    // 샤드 하나씩 읽기 락을 잡고 순회한다.
+    @Override
+    public void forEach(Consumer<? super Member> action) {
+        for (Shard shard : shards) {
+            shard.forEach(action);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private Shard shardFor(long memberId) {
+        return shards[indexFor(memberId)];
+    }
+
+    private int indexFor(long memberId) {
+        long h = memberId * 0x9e3779b97f4a7c15L;
+        return (int) ((h >>> 32) % shards.length);
+    }
+
+    // 선형 탐사 해시 테이블. values[i]가 null이면 빈 칸이다.
+    private static final class Shard {
+        private long[] keys = new long[16];
+        private Member[] values = new Member[16];
+        private int size;
+        private final StampedLock lock = new StampedLock();
+
+        void save(Member member) {
+            long stamp = lock.writeLock();
+            try {
+                put(member);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void saveAll(List<Member> members) {
+            long stamp = lock.writeLock();
+            try {
+                for (Member member : members) {
+                    put(member);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        Member findById(long memberId) {
+            long stamp = lock.readLock();
+            try {
+                return get(memberId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void forEach(Consumer<? super Member> action) {
+            long stamp = lock.readLock();
+            try {
+                for (Member member : values) {
+                    if (member != null) {
+                        action.accept(member);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void findAll(long[] memberIds, int[] positions, Member[] found) {
+            long stamp = lock.readLock();
+            try {
+                for (int position : positions) {
+                    found[position] = get(memberIds[position]);
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private Member get(long memberId) {
+            int mask = keys.length - 1;
+            for (int slot = slotFor(memberId, mask); values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == memberId) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        private void put(Member member) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+            long memberId = member.getId();
+            int mask = keys.length - 1;
+            int slot = slotFor(memberId, mask);
+            while (values[slot] != null && keys[slot] != memberId) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] == null) {
+                size++;
+            }
+            keys[slot] = memberId;
+            values[slot] = member;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Member[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Member[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = slotFor(oldKeys[i], mask);
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slotFor(long memberId, int mask) {
+            long h = memberId * 0xc2b2ae3d27d4eb4fL;
+            return (int) (h ^ (h >>> 29)) & mask;
+        }
+    }
+}
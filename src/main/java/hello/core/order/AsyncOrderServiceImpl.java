@@ -0,0 +1,45 @@
+package hello.core.order;
+
+import hello.core.AsyncExecutors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * OrderService의 호출을 executor에서 실행하고 바로 CompletableFuture를 돌려준다.
+ * executor를 받지 않고 만들면 직접 만든 executor를 쓰고, close할 때 종료한다. 받은 executor는 종료하지 않는다.
+ */
+public class AsyncOrderServiceImpl implements AsyncOrderService, AutoCloseable {
+    private final OrderService orderService;
+    private final Executor executor;
+    // 직접 만든 executor. 받은 executor를 쓰면 null이다.
+    private final ExecutorService ownedExecutor;
+
+    public AsyncOrderServiceImpl(OrderService orderService) {
+        this(orderService, AsyncExecutors.newDefaultExecutor(), true);
+    }
+
+    public AsyncOrderServiceImpl(OrderService orderService, Executor executor) {
+        this(orderService, executor, false);
+    }
+
+    private AsyncOrderServiceImpl(OrderService orderService, Executor executor, boolean owned) {
+        this.orderService = orderService;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+    }
+
+    @Override
+    public CompletableFuture<Order> create(Long memberId, String itemName, int itemPrice) {
+        return CompletableFuture.supplyAsync(() -> orderService.create(memberId, itemName, itemPrice), executor);
+    }
+
+    // 이미 받은 요청은 끝까지 처리하고 새 요청은 받지 않는다.
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+}
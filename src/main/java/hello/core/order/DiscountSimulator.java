@@ -0,0 +1,162 @@
+package hello.core.order;
+
+import hello.core.discount.DiscountPolicy;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 지난 주문 입력을 여러 할인 정책에 다시 넣어 보고, 정책을 바꾸면 할인이 얼마나 달라지는지 계산한다.
+ *
+ * 주문 입력은 OrderBatch로 받고 주문을 저장하거나 이벤트를 내지 않는다.
+ * 입력을 반씩 나눠 ForkJoinPool에서 처리하고, 구간 하나는 한 쓰레드가 모든 정책을 차례로 적용해서 long 배열에 더한다.
+ * 회원은 주문마다 한 번만 조회해서 모든 정책이 함께 쓴다. 없는 회원의 주문은 건너뛰고 수만 센다.
+ *
+ * 생성자로 받은 기준 정책(보통 지금 주문에 쓰는 @Primary 정책)과 비교한 차이도 함께 낸다.
+ */
+public class DiscountSimulator {
+    // 보고서에서 기준 정책의 이름
+    public static final String BASELINE = "baseline";
+
+    private static final int THRESHOLD = 16 * 1024;
+    private static final Grade[] GRADES = Grade.values();
+
+    private final MemberRepository memberRepository;
+    private final DiscountPolicy baseline;
+    private final ForkJoinPool pool;
+
+    public DiscountSimulator(MemberRepository memberRepository, DiscountPolicy baseline) {
+        this(memberRepository, baseline, ForkJoinPool.commonPool());
+    }
+
+    public DiscountSimulator(MemberRepository memberRepository, DiscountPolicy baseline, ForkJoinPool pool) {
+        this.memberRepository = memberRepository;
+        this.baseline = baseline;
+        this.pool = pool;
+    }
+
+    /**
+     * 생성자로 받은 기준 정책을 BASELINE이라는 이름으로 비교한다.
+     */
+    public SimulationReport simulate(OrderBatch orders, Map<String, DiscountPolicy> candidates) {
+        return simulate(orders, BASELINE, baseline, candidates);
+    }
+
+    /**
+     * @param orders 시뮬레이션이 끝날 때까지 바꾸면 안 된다. OrderBatch는 쓰레드에 안전하지 않고, 여러 쓰레드가 배열을 그대로 나눠 읽는다.
+     * @param candidates 이름별 후보 정책. 보고서에는 이 순서대로 나온다.
+     */
+    public SimulationReport simulate(OrderBatch orders, String baselineName, DiscountPolicy baseline, Map<String, DiscountPolicy> candidates) {
+        if (candidates.containsKey(baselineName)) {
+            throw new IllegalArgumentException("후보 정책 이름이 기준 정책과 같습니다. name = " + baselineName);
+        }
+        // 0번이 기준 정책이다.
+        Map<String, DiscountPolicy> policies = new LinkedHashMap<>();
+        policies.put(baselineName, baseline);
+        policies.putAll(candidates);
+        String[] names = policies.keySet().toArray(new String[0]);
+        DiscountPolicy[] policyArray = policies.values().toArray(new DiscountPolicy[0]);
+
+        int size = orders.size();
+        Totals totals = pool.invoke(new SimulationTask(
+                orders.memberIds(), orders.itemNames(), orders.itemPrices(), 0, size, policyArray));
+        return new SimulationReport(names, totals);
+    }
+
+    private final class SimulationTask extends RecursiveTask<Totals> {
+        private final long[] memberIds;
+        private final String[] itemNames;
+        private final int[] itemPrices;
+        private final int from;
+        private final int to;
+        private final DiscountPolicy[] policies;
+
+        private SimulationTask(long[] memberIds, String[] itemNames, int[] itemPrices, int from, int to, DiscountPolicy[] policies) {
+            this.memberIds = memberIds;
+            this.itemNames = itemNames;
+            this.itemPrices = itemPrices;
+            this.from = from;
+            this.to = to;
+            this.policies = policies;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                SimulationTask left = new SimulationTask(memberIds, itemNames, itemPrices, from, middle, policies);
+                left.fork();
+                Totals right = new SimulationTask(memberIds, itemNames, itemPrices, middle, to, policies).compute();
+                return left.join().plus(right);
+            }
+
+            Totals totals = new Totals(policies.length);
+            long[][] discounts = totals.discounts;
+            for (int i = from; i < to; i++) {
+                Member member = memberRepository.findById(memberIds[i]);
+                if (member == null) {
+                    totals.skipped++;
+                    continue;
+                }
+                int grade = member.getGrade().ordinal();
+                String itemName = itemNames[i];
+                int price = itemPrices[i];
+                totals.orderCounts[grade]++;
+                totals.grossAmounts[grade] += price;
+
+                int baseline = policies[0].discount(member, itemName, price);
+                discounts[0][grade] += baseline;
+                for (int p = 1; p < policies.length; p++) {
+                    int discount = policies[p].discount(member, itemName, price);
+                    discounts[p][grade] += discount;
+                    if (discount > baseline) {
+                        totals.increased[p]++;
+                    } else if (discount < baseline) {
+                        totals.decreased[p]++;
+                    }
+                }
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * 구간 하나의 합계. 정책과 등급은 번호(ordinal)로 찾는다.
+     */
+    static final class Totals {
+        final long[][] discounts;
+        final long[] orderCounts = new long[GRADES.length];
+        final long[] grossAmounts = new long[GRADES.length];
+        // 기준 정책보다 할인이 많거나 적은 주문 수
+        final long[] increased;
+        final long[] decreased;
+        long skipped;
+
+        Totals(int policyCount) {
+            this.discounts = new long[policyCount][GRADES.length];
+            this.increased = new long[policyCount];
+            this.decreased = new long[policyCount];
+        }
+
+        Totals plus(Totals other) {
+            for (int p = 0; p < discounts.length; p++) {
+                for (int g = 0; g < GRADES.length; g++) {
+                    discounts[p][g] += other.discounts[p][g];
+                }
+                increased[p] += other.increased[p];
+                decreased[p] += other.decreased[p];
+            }
+            for (int g = 0; g < GRADES.length; g++) {
+                orderCounts[g] += other.orderCounts[g];
+                grossAmounts[g] += other.grossAmounts[g];
+            }
+            skipped += other.skipped;
+            return this;
+        }
+    }
+}
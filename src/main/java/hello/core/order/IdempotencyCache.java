@@ -0,0 +1,124 @@
+package hello.core.order;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 같은 멱등 키로 다시 들어온 요청에 처음 결과를 돌려주는 캐시
+ *
+ * 키는 두 세대의 맵에 나눠 둔다. window가 지나거나 지금 세대가 maximumSize의 절반만큼 차면
+ * 지금 세대를 이전 세대로 내리고 이전 세대는 통째로 버린다. 그래서 항목을 하나씩 만료시키지 않아도 되고,
+ * 키는 최소 window 동안(가득 차서 일찍 넘어가지 않는 한) 기억되고 전체 크기는 대략 maximumSize로 묶인다.
+ * 세대를 바꿀지는 키를 넣기 전에 보므로, 동시에 넣는 쓰레드 수만큼 maximumSize를 잠깐 넘을 수 있다.
+ *
+ * 값은 CompletableFuture라서 같은 키로 동시에 들어온 요청은 먼저 등록한 요청의 결과를 기다리고,
+ * 다른 키의 요청끼리는 서로 기다리지 않는다. 처리에 실패하면 키를 지워서 재시도가 새로 처리되게 한다.
+ */
+public class IdempotencyCache<V> {
+    private final int generationSize;
+    private final long windowNanos;
+    private final LongSupplier ticker;
+    private volatile Generations<V> generations;
+
+    public IdempotencyCache(int maximumSize, Duration window) {
+        this(maximumSize, window, System::nanoTime);
+    }
+
+    IdempotencyCache(int maximumSize, Duration window, LongSupplier ticker) {
+        if (maximumSize < 2) {
+            throw new IllegalArgumentException("maximumSize는 2 이상이어야 합니다.");
+        }
+        this.generationSize = maximumSize / 2;
+        this.windowNanos = window.toNanos();
+        this.ticker = ticker;
+        this.generations = new Generations<>(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), ticker.getAsLong());
+    }
+
+    /**
+     * key로 처리한 적이 있으면 그 결과를, 없으면 creator를 실행한 결과를 돌려준다.
+     */
+    public V computeIfAbsent(String key, Supplier<V> creator) {
+        Generations<V> current = rotateIfNeeded();
+        CompletableFuture<V> existing = current.current.get(key);
+        if (existing == null) {
+            existing = current.previous.get(key);
+        }
+        if (existing == null) {
+            CompletableFuture<V> created = new CompletableFuture<>();
+            existing = current.current.putIfAbsent(key, created);
+            if (existing == null) {
+                return complete(current, key, created, creator);
+            }
+        }
+        return await(existing);
+    }
+
+    public int size() {
+        Generations<V> current = generations;
+        return current.current.size() + current.previous.size();
+    }
+
+    private V complete(Generations<V> generation, String key, CompletableFuture<V> future, Supplier<V> creator) {
+        try {
+            V value = creator.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            // 그 사이에 세대가 바뀌었을 수 있으니 두 맵에서 모두 지운다.
+            generation.current.remove(key, future);
+            generation.previous.remove(key, future);
+            generations.current.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // 세대를 바꾸는 것만 한 쓰레드씩 한다. 바꿀 필요가 없으면 락을 잡지 않는다.
+    private Generations<V> rotateIfNeeded() {
+        Generations<V> current = generations;
+        if (!current.isFull(generationSize, windowNanos, ticker.getAsLong())) {
+            return current;
+        }
+        synchronized (this) {
+            current = generations;
+            long now = ticker.getAsLong();
+            if (current.isFull(generationSize, windowNanos, now)) {
+                current = new Generations<>(new ConcurrentHashMap<>(), current.current, now);
+                generations = current;
+            }
+            return current;
+        }
+    }
+
+    private static final class Generations<V> {
+        private final Map<String, CompletableFuture<V>> current;
+        private final Map<String, CompletableFuture<V>> previous;
+        private final long startedAt;
+
+        private Generations(Map<String, CompletableFuture<V>> current, Map<String, CompletableFuture<V>> previous, long startedAt) {
+            this.current = current;
+            this.previous = previous;
+            this.startedAt = startedAt;
+        }
+
+        boolean isFull(int generationSize, long windowNanos, long now) {
+            return now - startedAt >= windowNanos || current.size() >= generationSize;
+        }
+    }
+}
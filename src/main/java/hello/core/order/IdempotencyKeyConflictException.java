@@ -0,0 +1,10 @@
+package hello.core.order;
+
+/**
+ * 같은 회원이 이미 쓴 멱등 키로 다른 상품이나 가격의 주문을 보냈을 때 던진다.
+ */
+public class IdempotencyKeyConflictException extends IllegalArgumentException {
+    public IdempotencyKeyConflictException(String idempotencyKey, Long memberId) {
+        super("이미 다른 주문에 쓴 멱등 키입니다. memberId = " + memberId + ", idempotencyKey = " + idempotencyKey);
+    }
+}
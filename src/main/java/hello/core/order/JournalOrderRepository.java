@@ -0,0 +1,575 @@
+package hello.core.order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * 주문을 세그먼트 파일에 이어 쓰기만 하는 리포지토리
+ *
+ * 세그먼트(orders-0000000001.seg)는 segmentSize 크기로 미리 만들어서 메모리 맵으로 연다.
+ * save는 맵에 기록을 복사하고, 디스크에 반영(force)된 뒤에 반환한다.
+ * 여러 쓰레드가 동시에 저장하면 먼저 force를 시작한 쓰레드가 그때까지 쓰인 구간을 한 번에 반영한다. (그룹 커밋)
+ * 세그먼트가 가득 차면 다음 번호의 세그먼트를 새로 만든다.
+ *
+ * 메모리에는 회원 id별로 주문 기록의 위치(세그먼트 번호, 오프셋)만 들고 있어서 회원의 주문 조회는 파일을 훑지 않는다.
+ * deleteByMemberId는 삭제 기록(tombstone)을 남기고, compact가 지워진 주문이 있는 닫힌 세그먼트를 다시 쓴다.
+ *
+ * 기록 형식: [길이(4)][CRC32C(4)][종류(1)][회원 id(8)] 다음에 주문이면 [상품 id(4)][상품 가격(4)][할인 금액(4)][상품명 길이(4), null이면 -1][상품명 UTF-8]
+ * 시작할 때는 세그먼트를 번호 순서대로 읽어서 위치를 다시 만든다. 마지막 기록이 쓰다 만 상태면 그 앞까지만 복구한다.
+ */
+public class JournalOrderRepository implements OrderRepository, AutoCloseable {
+    static final String SEGMENT_PREFIX = "orders-";
+    static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COMPACT_SUFFIX = ".compact";
+
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+    private static final int TOMBSTONE_BODY_SIZE = 1 + 8;
+    private static final int ORDER_BODY_SIZE = TOMBSTONE_BODY_SIZE + 4 + 4 + 4 + 4;
+    private static final byte TYPE_ORDER = 1;
+    private static final byte TYPE_TOMBSTONE = 2;
+    private static final int NULL_LENGTH = -1;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final Map<Long, Addresses> index = new HashMap<>();
+    private Segment active;
+    private int orderCount;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object flushLock = new Object();
+    private final CRC32C crc = new CRC32C();
+    // 세그먼트가 바뀌어도 줄어들지 않는 누적 위치. 그룹 커밋에서 어디까지 반영됐는지 비교하는 데 쓴다.
+    private long appendedPosition;
+    private volatile long durablePosition;
+
+    public JournalOrderRepository(Path directory) {
+        this(directory, 64 << 20);
+    }
+
+    public JournalOrderRepository(Path directory, int segmentSize) {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("segmentSize는 1024 이상이어야 합니다.");
+        }
+
+        try {
+            Files.createDirectories(directory);
+            this.directory = directory;
+            this.segmentSize = segmentSize;
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void save(Order order) {
+        saveAll(List.of(order));
+    }
+
+    // 기록을 모두 맵에 쓴 다음 한 번만 force 한다.
+    @Override
+    public void saveAll(Collection<Order> orders) {
+        byte[][] itemNames = new byte[orders.size()][];
+        int i = 0;
+        for (Order order : orders) {
+            if (order.getMemberId() == null) {
+                throw new IllegalArgumentException("회원 id가 없는 주문은 저장할 수 없습니다.");
+            }
+            itemNames[i] = order.getItemName() == null ? null : order.getItemName().getBytes(StandardCharsets.UTF_8);
+            if (orderRecordSize(itemNames[i]) > segmentSize) {
+                throw new IllegalArgumentException("주문 하나가 세그먼트 크기보다 큽니다. itemName = " + order.getItemName());
+            }
+            i++;
+        }
+
+        long position;
+        lock.writeLock().lock();
+        try {
+            i = 0;
+            for (Order order : orders) {
+                appendOrder(order, itemNames[i++]);
+            }
+            position = appendedPosition;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitDurable(position);
+    }
+
+    @Override
+    public List<Order> findByMemberId(Long memberId) {
+        if (memberId == null) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Addresses addresses = index.get(memberId);
+            if (addresses == null) {
+                return new ArrayList<>();
+            }
+            List<Order> orders = new ArrayList<>(addresses.size);
+            for (int i = 0; i < addresses.size; i++) {
+                orders.add(readOrder(addresses.values[i]));
+            }
+            return orders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int deleteByMemberId(Long memberId) {
+        if (memberId == null) {
+            return 0;
+        }
+
+        int deleted;
+        long position;
+        lock.writeLock().lock();
+        try {
+            if (!index.containsKey(memberId)) {
+                return 0;
+            }
+            int length = TOMBSTONE_BODY_SIZE;
+            ensureCapacity(RECORD_HEADER_SIZE + length);
+            int offset = active.writeOffset;
+            active.buffer.put(offset + RECORD_HEADER_SIZE, TYPE_TOMBSTONE);
+            active.buffer.putLong(offset + RECORD_HEADER_SIZE + 1, memberId);
+            finishRecord(offset, length);
+            // 삭제 기록 자체도 compact에서 지울 대상이다.
+            active.deadBytes += RECORD_HEADER_SIZE + length;
+            deleted = markDeleted(memberId);
+            position = appendedPosition;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitDurable(position);
+        return deleted;
+    }
+
+    // 회원별 위치 목록을 따라 읽는다. 같은 회원의 주문은 저장한 순서대로 넘겨준다.
+    @Override
+    public void forEach(Consumer<? super Order> action) {
+        lock.readLock().lock();
+        try {
+            for (Addresses addresses : index.values()) {
+                for (int i = 0; i < addresses.size; i++) {
+                    action.accept(readOrder(addresses.values[i]));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return orderCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 지워진 주문이 있는 닫힌 세그먼트를 오래된 것부터 하나씩 다시 써서 살아 있는 기록만 남긴다.
+     * 세그먼트 하나를 다시 쓰는 동안만 저장을 막는다.
+     *
+     * 삭제 기록은 그보다 오래된 세그먼트에서 지워진 주문이 모두 사라진 다음에만 버릴 수 있다.
+     * 이번에 다시 쓸 세그먼트는 시작할 때 정하고 번호 순서대로 처리하므로, 어떤 세그먼트를 다시 쓸 때는
+     * 그 안의 삭제 기록이 가리키는 오래된 주문이 이미 앞에서 모두 지워진 상태다.
+     *
+     * @return 줄어든 바이트 수
+     */
+    public synchronized long compact() {
+        List<Integer> targets = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment != active && segment.deadBytes > 0) {
+                    targets.add(segment.id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long reclaimed = 0;
+        for (int id : targets) {
+            // 그룹 커밋의 force와 겹치지 않게 flushLock을 먼저 잡는다.
+            synchronized (flushLock) {
+                lock.writeLock().lock();
+                try {
+                    // 반영 안 된 세그먼트가 항상 끝쪽에 몰려 있도록 먼저 모두 force 한다.
+                    forceAll();
+                    reclaimed += compactSegment(segments.get(id));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+        return reclaimed;
+    }
+
+    @Override
+    public void close() {
+        synchronized (flushLock) {
+            lock.writeLock().lock();
+            try {
+                forceAll();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // writeLock을 잡은 상태에서 호출한다.
+    private void appendOrder(Order order, byte[] itemName) {
+        int length = ORDER_BODY_SIZE + (itemName == null ? 0 : itemName.length);
+        ensureCapacity(RECORD_HEADER_SIZE + length);
+
+        MappedByteBuffer buffer = active.buffer;
+        int offset = active.writeOffset;
+        int start = offset + RECORD_HEADER_SIZE;
+        buffer.put(start, TYPE_ORDER);
+        buffer.putLong(start + 1, order.getMemberId());
+        buffer.putInt(start + 9, order.getItemId());
+        buffer.putInt(start + 13, order.getItemPrice());
+        buffer.putInt(start + 17, order.getDiscountPrice());
+        buffer.putInt(start + 21, itemName == null ? NULL_LENGTH : itemName.length);
+        if (itemName != null) {
+            buffer.put(start + ORDER_BODY_SIZE, itemName);
+        }
+        finishRecord(offset, length);
+
+        index.computeIfAbsent(order.getMemberId(), k -> new Addresses()).add(address(active.id, offset));
+        orderCount++;
+    }
+
+    // 본문을 다 쓴 다음 CRC와 길이를 쓰고 쓰기 위치를 옮긴다.
+    private void finishRecord(int offset, int length) {
+        crc.reset();
+        crc.update(active.buffer.slice(offset + RECORD_HEADER_SIZE, length));
+        active.buffer.putInt(offset + 4, (int) crc.getValue());
+        active.buffer.putInt(offset, length);
+        active.writeOffset = offset + RECORD_HEADER_SIZE + length;
+        appendedPosition += RECORD_HEADER_SIZE + length;
+    }
+
+    // 지금 세그먼트에 자리가 없으면 다음 세그먼트로 넘어간다. 닫힌 세그먼트의 남은 구간은 다음 그룹 커밋이 force 한다.
+    private void ensureCapacity(int recordSize) {
+        if (active.writeOffset + recordSize <= active.buffer.capacity()) {
+            return;
+        }
+        try {
+            active = openSegment(active.id + 1, segmentSize, FileChannel.MapMode.READ_WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.put(active.id, active);
+    }
+
+    // writeLock을 잡은 상태에서 호출한다. 지운 주문이 있던 세그먼트마다 지울 바이트 수를 더한다.
+    private int markDeleted(long memberId) {
+        Addresses addresses = index.remove(memberId);
+        if (addresses == null) {
+            return 0;
+        }
+        for (int i = 0; i < addresses.size; i++) {
+            Segment segment = segments.get(segmentId(addresses.values[i]));
+            segment.deadBytes += RECORD_HEADER_SIZE + segment.buffer.getInt(offset(addresses.values[i]));
+        }
+        orderCount -= addresses.size;
+        return addresses.size;
+    }
+
+    // 이미 다른 쓰레드가 force 해 줬으면 바로 반환한다.
+    private void awaitDurable(long position) {
+        if (durablePosition >= position) {
+            return;
+        }
+
+        synchronized (flushLock) {
+            if (durablePosition >= position) {
+                return;
+            }
+
+            // 반영할 구간만 읽기 락 안에서 정하고, force는 락 밖에서 해서 그동안 다른 쓰레드가 계속 쓸 수 있게 한다.
+            long target;
+            List<Segment> dirty = new ArrayList<>(2);
+            List<int[]> ranges = new ArrayList<>(2);
+            lock.readLock().lock();
+            try {
+                target = appendedPosition;
+                // 반영 안 된 세그먼트는 항상 끝쪽에 몰려 있다.
+                for (Segment segment : segments.descendingMap().values()) {
+                    if (segment.forcedOffset < segment.writeOffset) {
+                        dirty.add(segment);
+                        ranges.add(new int[]{segment.forcedOffset, segment.writeOffset});
+                    } else if (segment != active) {
+                        break;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            for (int i = 0; i < dirty.size(); i++) {
+                int[] range = ranges.get(i);
+                dirty.get(i).buffer.force(range[0], range[1] - range[0]);
+                dirty.get(i).forcedOffset = range[1];
+            }
+            durablePosition = target;
+        }
+    }
+
+    // flushLock과 writeLock을 잡은 상태에서 호출한다.
+    private void forceAll() {
+        for (Segment segment : segments.values()) {
+            if (segment.forcedOffset < segment.writeOffset) {
+                segment.buffer.force(segment.forcedOffset, segment.writeOffset - segment.forcedOffset);
+                segment.forcedOffset = segment.writeOffset;
+            }
+        }
+        durablePosition = appendedPosition;
+    }
+
+    private Order readOrder(long address) {
+        MappedByteBuffer buffer = segments.get(segmentId(address)).buffer;
+        int start = offset(address) + RECORD_HEADER_SIZE;
+        long memberId = buffer.getLong(start + 1);
+        int itemId = buffer.getInt(start + 9);
+        int itemPrice = buffer.getInt(start + 13);
+        int discountPrice = buffer.getInt(start + 17);
+        int nameLength = buffer.getInt(start + 21);
+
+        String itemName = null;
+        if (nameLength != NULL_LENGTH) {
+            byte[] bytes = new byte[nameLength];
+            buffer.get(start + ORDER_BODY_SIZE, bytes);
+            itemName = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new Order(memberId, itemId, itemName, itemPrice, discountPrice);
+    }
+
+    // 살아 있는 주문만 임시 파일에 모으고 원래 이름으로 바꾼다. 삭제 기록은 버린다.
+    private long compactSegment(Segment segment) throws IOException {
+        List<long[]> moves = new ArrayList<>();
+        int liveBytes = 0;
+        int position = 0;
+        while (position < segment.writeOffset) {
+            int recordSize = RECORD_HEADER_SIZE + segment.buffer.getInt(position);
+            int start = position + RECORD_HEADER_SIZE;
+            long memberId = segment.buffer.getLong(start + 1);
+            if (segment.buffer.get(start) == TYPE_ORDER && isLive(memberId, address(segment.id, position))) {
+                moves.add(new long[]{memberId, position, liveBytes, recordSize});
+                liveBytes += recordSize;
+            }
+            position += recordSize;
+        }
+
+        long reclaimed = segment.writeOffset - liveBytes;
+        if (liveBytes == 0) {
+            Files.delete(segment.path);
+            segments.remove(segment.id);
+            return reclaimed;
+        }
+
+        Path tempPath = segment.path.resolveSibling(segment.path.getFileName() + COMPACT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = channel.map(FileChannel.MapMode.READ_WRITE, 0, liveBytes);
+            for (long[] move : moves) {
+                target.put((int) move[2], segment.buffer, (int) move[1], (int) move[3]);
+            }
+            target.force();
+        }
+        Files.move(tempPath, segment.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Segment compacted = openSegment(segment.id, 0, FileChannel.MapMode.READ_ONLY);
+        compacted.writeOffset = liveBytes;
+        compacted.forcedOffset = liveBytes;
+        segments.put(compacted.id, compacted);
+        // 파일을 바꾼 다음에 위치를 고친다. 세그먼트 안의 순서는 그대로라 회원별 위치 목록도 정렬된 채로 남는다.
+        for (long[] move : moves) {
+            Addresses addresses = index.get(move[0]);
+            addresses.values[addresses.indexOf(address(segment.id, (int) move[1]))] = address(segment.id, (int) move[2]);
+        }
+        return reclaimed;
+    }
+
+    private boolean isLive(long memberId, long address) {
+        Addresses addresses = index.get(memberId);
+        return addresses != null && addresses.indexOf(address) >= 0;
+    }
+
+    private void recover() throws IOException {
+        TreeSet<Integer> ids = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(COMPACT_SUFFIX)) {
+                    // compact 도중에 죽으면 남는 임시 파일이다. 원래 세그먼트는 그대로 있다.
+                    Files.delete(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    ids.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                }
+            }
+        }
+
+        if (ids.isEmpty()) {
+            active = openSegment(1, segmentSize, FileChannel.MapMode.READ_WRITE);
+            segments.put(active.id, active);
+            return;
+        }
+
+        for (int id : ids) {
+            boolean last = id == ids.last();
+            Segment segment = last
+                    ? openSegment(id, segmentSize, FileChannel.MapMode.READ_WRITE)
+                    : openSegment(id, 0, FileChannel.MapMode.READ_ONLY);
+            segments.put(id, segment);
+            segment.writeOffset = replay(segment);
+            segment.forcedOffset = segment.writeOffset;
+            appendedPosition += segment.writeOffset;
+            if (last) {
+                active = segment;
+                clearTornTail(segment);
+            }
+        }
+        durablePosition = appendedPosition;
+    }
+
+    // 세그먼트의 기록을 처음부터 다시 적용하고 마지막 온전한 기록의 끝 위치를 반환한다.
+    private int replay(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (buffer.limit() - position >= RECORD_HEADER_SIZE) {
+            int length = buffer.getInt(position);
+            int start = position + RECORD_HEADER_SIZE;
+            if (length < TOMBSTONE_BODY_SIZE || length > buffer.limit() - start) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(start, length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+
+            long memberId = buffer.getLong(start + 1);
+            if (buffer.get(start) == TYPE_ORDER) {
+                index.computeIfAbsent(memberId, k -> new Addresses()).add(address(segment.id, position));
+                orderCount++;
+            } else {
+                segment.deadBytes += RECORD_HEADER_SIZE + length;
+                markDeleted(memberId);
+            }
+            position = start + length;
+        }
+        return position;
+    }
+
+    // 쓰다 만 기록이 남아 있으면 0으로 지워서 다음에 쓸 기록과 섞이지 않게 한다.
+    private static void clearTornTail(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        if (buffer.limit() - segment.writeOffset < 4 || buffer.getInt(segment.writeOffset) == 0) {
+            return;
+        }
+        for (int i = segment.writeOffset; i < buffer.limit(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+    }
+
+    private Segment openSegment(int id, int mappedSize, FileChannel.MapMode mode) throws IOException {
+        Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        // 맵은 채널을 닫아도 남아 있으므로 파일을 열어 둘 필요가 없다.
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return new Segment(id, path, channel.map(mode, 0, Math.max(channel.size(), mappedSize)));
+        }
+    }
+
+    private static int orderRecordSize(byte[] itemName) {
+        return RECORD_HEADER_SIZE + ORDER_BODY_SIZE + (itemName == null ? 0 : itemName.length);
+    }
+
+    private static long address(int segmentId, int offset) {
+        return (long) segmentId << 32 | offset;
+    }
+
+    private static int segmentId(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int writeOffset;
+        private int forcedOffset;
+        private long deadBytes;
+
+        private Segment(int id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    // 회원 한 명의 주문 위치 목록. 저장한 순서대로 쌓이므로 항상 정렬되어 있다.
+    private static final class Addresses {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long address) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = address;
+        }
+
+        int indexOf(long address) {
+            return Arrays.binarySearch(values, 0, size, address);
+        }
+    }
+}
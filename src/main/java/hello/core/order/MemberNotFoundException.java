@@ -0,0 +1,17 @@
+package hello.core.order;
+
+/**
+ * 주문한 회원이 저장소에 없을 때 던진다.
+ */
+public class MemberNotFoundException extends RuntimeException {
+    private final Long memberId;
+
+    public MemberNotFoundException(Long memberId) {
+        super("회원이 없습니다. memberId = " + memberId);
+        this.memberId = memberId;
+    }
+
+    public Long getMemberId() {
+        return memberId;
+    }
+}
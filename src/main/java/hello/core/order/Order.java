@@ -1,13 +1,22 @@
 package hello.core.order;
 
+import hello.core.item.ItemCatalog;
+
 public class Order {
     private Long memberId;
+    // 상품 목록으로 만든 주문만 설정된다. 아니면 ItemCatalog.UNKNOWN_ID
+    private int itemId;
     private String itemName;
     private int itemPrice;
     private int discountPrice;
 
     public Order(Long memberId, String itemName, int itemPrice, int discountPrice) {
+        this(memberId, ItemCatalog.UNKNOWN_ID, itemName, itemPrice, discountPrice);
+    }
+
+    public Order(Long memberId, int itemId, String itemName, int itemPrice, int discountPrice) {
         this.memberId = memberId;
+        this.itemId = itemId;
         this.itemName = itemName;
         this.itemPrice = itemPrice;
         this.discountPrice = discountPrice;
@@ -25,6 +34,14 @@ public class Order {
         this.memberId = memberId;
     }
 
+    public int getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(int itemId) {
+        this.itemId = itemId;
+    }
+
     public String getItemName() {
         return itemName;
     }
@@ -53,6 +70,7 @@ public class Order {
     public String toString() {
         return "Order{" +
                 "memberId=" + memberId +
+                ", itemId=" + itemId +
                 ", itemName='" + itemName + '\'' +
                 ", itemPrice=" + itemPrice +
                 ", discountPrice=" + discountPrice +
@@ -0,0 +1,242 @@
+package hello.core.order;
+
+import hello.core.member.Grade;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 주문이 들어올 때마다 회원별, 등급별 주문 수와 금액 합계를 바로 갱신해 두는 집계
+ * 조회할 때 주문을 다시 훑지 않으므로 대시보드에서 O(1)로 읽을 수 있다.
+ *
+ * 등급별 집계는 주문이 몰리므로 칸을 여러 개(stripe)로 나누고, 쓰레드마다 다른 칸에 더한 뒤 읽을 때 합친다.
+ * 칸 하나는 버전 번호로 보호한다. (seqlock) 쓰는 쪽은 버전을 홀수로 바꾸고 값을 고친 뒤 짝수로 되돌리고,
+ * 읽는 쪽은 읽기 전후의 버전이 같은 짝수일 때만 읽은 값을 쓴다. 그래서 읽는 쪽은 락을 잡지 않고,
+ * 주문 수, 상품 가격 합계, 할인 합계가 항상 같은 주문들까지 반영된 값으로 보인다.
+ * 등급 전체 값은 칸별로 일관된 값을 합친 것이라, 합치는 도중에 들어온 주문은 일부 칸에만 반영되어 있을 수 있다.
+ *
+ * 회원별 집계는 한 회원에게 주문이 동시에 몰릴 일이 드물어서 회원마다 칸 하나만 둔다.
+ *
+ * 등급별 집계는 처음부터의 누적값과 오늘(zone 기준 자정부터)의 값을 함께 둔다.
+ * 날짜가 바뀐 뒤 첫 주문이 오늘 칸을 새로 만들어 바꾸고, 그 전까지 오늘 값을 읽으면 빈 값이 나온다.
+ * 자정 직전에 오늘 칸을 읽어 둔 쓰레드의 주문은 전날 칸에 더해질 수 있다.
+ */
+public class OrderAggregates implements OrderEventHandler {
+    private static final Grade[] GRADES = Grade.values();
+
+    private final Cell[][] gradeCells;
+    private final int stripeMask;
+    private final Map<Long, Cell> memberCells = new ConcurrentHashMap<>();
+    private final ZoneId zone;
+    private final LongSupplier clock;
+    private volatile Day today;
+
+    public OrderAggregates() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public OrderAggregates(int stripes) {
+        this(stripes, ZoneId.systemDefault(), System::currentTimeMillis);
+    }
+
+    /**
+     * @param zone 오늘이 언제 시작하는지 정하는 시간대
+     * @param clock 현재 시각(ms)
+     */
+    public OrderAggregates(int stripes, ZoneId zone, LongSupplier clock) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes는 0보다 커야 합니다.");
+        }
+        int size = Integer.highestOneBit(stripes * 2 - 1);
+        this.stripeMask = size - 1;
+        this.gradeCells = newGradeCells(size);
+        this.zone = zone;
+        this.clock = clock;
+        this.today = newDay(clock.getAsLong());
+    }
+
+    public void record(Order order, Grade grade) {
+        record(order.getMemberId(), grade, order.getItemPrice(), order.getDiscountPrice());
+    }
+
+    /**
+     * @param grade 주문 시점의 회원 등급, 모르면 null이고 등급별 집계에는 넣지 않는다.
+     */
+    public void record(long memberId, Grade grade, int itemPrice, int discountPrice) {
+        memberCells.computeIfAbsent(memberId, id -> new Cell()).add(itemPrice, discountPrice);
+        if (grade != null) {
+            int stripe = stripe();
+            gradeCells[grade.ordinal()][stripe].add(itemPrice, discountPrice);
+            currentDay(clock.getAsLong()).gradeCells[grade.ordinal()][stripe].add(itemPrice, discountPrice);
+        }
+    }
+
+    // 링 버퍼에 핸들러로 붙이면 create 밖에서 집계한다.
+    @Override
+    public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+        record(event.getMemberId(), event.getGrade(), event.getItemPrice(), event.getDiscountPrice());
+    }
+
+    public OrderTotals getMemberTotals(long memberId) {
+        Cell cell = memberCells.get(memberId);
+        return cell == null ? OrderTotals.EMPTY : cell.snapshot();
+    }
+
+    public OrderTotals getGradeTotals(Grade grade) {
+        return sum(gradeCells[grade.ordinal()]);
+    }
+
+    public Map<Grade, OrderTotals> getGradeTotals() {
+        Map<Grade, OrderTotals> totals = new EnumMap<>(Grade.class);
+        for (Grade grade : GRADES) {
+            totals.put(grade, getGradeTotals(grade));
+        }
+        return totals;
+    }
+
+    /**
+     * @return 오늘 자정부터의 등급별 집계
+     */
+    public OrderTotals getTodayGradeTotals(Grade grade) {
+        Day day = today;
+        if (clock.getAsLong() >= day.endMillis) {
+            // 날짜가 바뀐 뒤로 아직 주문이 없다.
+            return OrderTotals.EMPTY;
+        }
+        return sum(day.gradeCells[grade.ordinal()]);
+    }
+
+    public Map<Grade, OrderTotals> getTodayGradeTotals() {
+        Map<Grade, OrderTotals> totals = new EnumMap<>(Grade.class);
+        for (Grade grade : GRADES) {
+            totals.put(grade, getTodayGradeTotals(grade));
+        }
+        return totals;
+    }
+
+    public LocalDate getToday() {
+        return Instant.ofEpochMilli(clock.getAsLong()).atZone(zone).toLocalDate();
+    }
+
+    public int getMemberCount() {
+        return memberCells.size();
+    }
+
+    // 날짜가 바뀌었으면 오늘 칸을 새로 만든다. 바꾸는 일은 하루에 한 번뿐이라 락을 잡는다.
+    private Day currentDay(long now) {
+        Day day = today;
+        if (now < day.endMillis) {
+            return day;
+        }
+        synchronized (this) {
+            day = today;
+            if (now >= day.endMillis) {
+                day = newDay(now);
+                today = day;
+            }
+            return day;
+        }
+    }
+
+    private Day newDay(long now) {
+        LocalDate date = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+        // 서머타임이 있는 시간대도 있어서 하루 길이를 24시간으로 두지 않고 다음 날 자정을 구한다.
+        long endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        return new Day(endMillis, newGradeCells(stripeMask + 1));
+    }
+
+    private static Cell[][] newGradeCells(int stripes) {
+        Cell[][] cells = new Cell[GRADES.length][stripes];
+        for (Cell[] gradeCells : cells) {
+            for (int i = 0; i < stripes; i++) {
+                gradeCells[i] = new Cell();
+            }
+        }
+        return cells;
+    }
+
+    private static OrderTotals sum(Cell[] cells) {
+        OrderTotals totals = OrderTotals.EMPTY;
+        for (Cell cell : cells) {
+            totals = totals.plus(cell.snapshot());
+        }
+        return totals;
+    }
+
+    // 같은 쓰레드는 항상 같은 칸에 더한다.
+    private int stripe() {
+        long h = Thread.currentThread().getId() * 0x9e3779b97f4a7c15L;
+        return (int) (h >>> 32) & stripeMask;
+    }
+
+    // 하루치 등급별 칸
+    private static final class Day {
+        // 다음 날 자정(ms)
+        private final long endMillis;
+        private final Cell[][] gradeCells;
+
+        private Day(long endMillis, Cell[][] gradeCells) {
+            this.endMillis = endMillis;
+            this.gradeCells = gradeCells;
+        }
+    }
+
+    private static final class Cell {
+        private static final VarHandle VERSION;
+
+        static {
+            try {
+                VERSION = MethodHandles.lookup().findVarHandle(Cell.class, "version", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        // 홀수면 누군가 쓰는 중이다.
+        private volatile long version;
+        private long orderCount;
+        private long grossAmount;
+        private long discountAmount;
+
+        void add(int itemPrice, int discountPrice) {
+            long current;
+            while (true) {
+                current = version;
+                if ((current & 1) == 0 && VERSION.compareAndSet(this, current, current + 1)) {
+                    break;
+                }
+                Thread.onSpinWait();
+            }
+            // 버전을 홀수로 바꾼 것이 아래 값 변경보다 먼저 보이게 한다.
+            VarHandle.releaseFence();
+            orderCount++;
+            grossAmount += itemPrice;
+            discountAmount += discountPrice;
+            VERSION.setRelease(this, current + 2);
+        }
+
+        OrderTotals snapshot() {
+            while (true) {
+                long before = (long) VERSION.getAcquire(this);
+                if ((before & 1) == 0) {
+                    long count = orderCount;
+                    long gross = grossAmount;
+                    long discount = discountAmount;
+                    // 값을 읽은 것이 아래 버전 확인보다 늦어지지 않게 한다.
+                    VarHandle.acquireFence();
+                    if (before == (long) VERSION.getOpaque(this)) {
+                        return new OrderTotals(count, gross, discount);
+                    }
+                }
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
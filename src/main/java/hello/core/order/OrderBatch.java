@@ -0,0 +1,57 @@
+package hello.core.order;
+
+import java.util.Arrays;
+
+/**
+ * 한꺼번에 가격을 매길 주문 입력
+ * 주문마다 객체를 만들지 않도록 회원 id, 상품명, 상품 가격을 각각 배열에 모아 둔다.
+ */
+public final class OrderBatch {
+    private long[] memberIds;
+    private String[] itemNames;
+    private int[] itemPrices;
+    private int size;
+
+    public OrderBatch() {
+        this(16);
+    }
+
+    public OrderBatch(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+        this.memberIds = new long[capacity];
+        this.itemNames = new String[capacity];
+        this.itemPrices = new int[capacity];
+    }
+
+    public OrderBatch add(long memberId, String itemName, int itemPrice) {
+        if (size == memberIds.length) {
+            int capacity = size * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            itemNames = Arrays.copyOf(itemNames, capacity);
+            itemPrices = Arrays.copyOf(itemPrices, capacity);
+        }
+        memberIds[size] = memberId;
+        itemNames[size] = itemName;
+        itemPrices[size] = itemPrice;
+        size++;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // add는 뒤에 덧붙이기만 하고 이미 들어간 값은 바꾸지 않는다.
+    // 그래서 지금 배열과 size를 잡아 두면 이후에 add가 일어나도 그 구간의 값은 그대로다.
+    long[] memberIds() {
+        return memberIds;
+    }
+
+    String[] itemNames() {
+        return itemNames;
+    }
+
+    int[] itemPrices() {
+        return itemPrices;
+    }
+}
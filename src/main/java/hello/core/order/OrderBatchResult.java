@@ -0,0 +1,77 @@
+package hello.core.order;
+
+/**
+ * OrderBatch의 가격 계산 결과
+ * 입력과 같은 순서로 할인 금액만 int 배열에 담는다. Order 객체는 getOrder로 필요한 것만 만든다.
+ * 입력 배열은 복사하지 않고 계산한 시점의 배열과 크기를 그대로 참조한다.
+ */
+public final class OrderBatchResult {
+    private final long[] memberIds;
+    private final String[] itemNames;
+    private final int[] itemPrices;
+    private final int[] discountPrices;
+    private final int size;
+
+    OrderBatchResult(OrderBatch batch, int[] discountPrices) {
+        this.memberIds = batch.memberIds();
+        this.itemNames = batch.itemNames();
+        this.itemPrices = batch.itemPrices();
+        this.discountPrices = discountPrices;
+        this.size = discountPrices.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getMemberId(int index) {
+        checkIndex(index);
+        return memberIds[index];
+    }
+
+    public String getItemName(int index) {
+        checkIndex(index);
+        return itemNames[index];
+    }
+
+    public int getItemPrice(int index) {
+        checkIndex(index);
+        return itemPrices[index];
+    }
+
+    public int getDiscountPrice(int index) {
+        checkIndex(index);
+        return discountPrices[index];
+    }
+
+    public int calculatePrice(int index) {
+        return getItemPrice(index) - getDiscountPrice(index);
+    }
+
+    public Order getOrder(int index) {
+        return new Order(getMemberId(index), getItemName(index), getItemPrice(index), getDiscountPrice(index));
+    }
+
+    // 정산 합계가 int 범위를 넘을 수 있어서 long으로 더한다.
+    public long getTotalPrice() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += itemPrices[i] - discountPrices[i];
+        }
+        return total;
+    }
+
+    public long getTotalDiscountPrice() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += discountPrices[i];
+        }
+        return total;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index = " + index + ", size = " + size);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package hello.core.order;
+
+import hello.core.member.Grade;
+
+/**
+ * 링 버퍼의 한 칸. 미리 만들어 두고 발행할 때마다 값만 바꿔서 재사용한다.
+ * 핸들러는 onEvent 안에서만 값을 읽고, 필요하면 복사해 둔다. 반환한 뒤에는 다음 주문으로 덮어써진다.
+ */
+public final class OrderEvent {
+    private long memberId;
+    private Grade grade;
+    private int itemId;
+    private String itemName;
+    private int itemPrice;
+    private int discountPrice;
+
+    void set(long memberId, Grade grade, int itemId, String itemName, int itemPrice, int discountPrice) {
+        this.memberId = memberId;
+        this.grade = grade;
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.itemPrice = itemPrice;
+        this.discountPrice = discountPrice;
+    }
+
+    public long getMemberId() {
+        return memberId;
+    }
+
+    public Grade getGrade() {
+        return grade;
+    }
+
+    // 상품 목록으로 만든 주문이 아니면 ItemCatalog.UNKNOWN_ID
+    public int getItemId() {
+        return itemId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public int getItemPrice() {
+        return itemPrice;
+    }
+
+    public int getDiscountPrice() {
+        return discountPrice;
+    }
+
+    public int calculatePrice() {
+        return itemPrice - discountPrice;
+    }
+
+    public Order toOrder() {
+        return new Order(memberId, itemId, itemName, itemPrice, discountPrice);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderEvent{" +
+                "memberId=" + memberId +
+                ", grade=" + grade +
+                ", itemId=" + itemId +
+                ", itemName='" + itemName + '\'' +
+                ", itemPrice=" + itemPrice +
+                ", discountPrice=" + discountPrice +
+                '}';
+    }
+}
@@ -0,0 +1,11 @@
+package hello.core.order;
+
+public interface OrderEventHandler {
+    /**
+     * 핸들러 전용 쓰레드에서 발행된 순서대로 호출된다.
+     * @param event 재사용되는 칸이라 반환한 뒤에는 참조하지 않는다.
+     * @param sequence 발행 번호
+     * @param endOfBatch 지금 꺼낸 묶음의 마지막이면 true. 모아 둔 것을 내보내기 좋은 시점이다.
+     */
+    void onEvent(OrderEvent event, long sequence, boolean endOfBatch);
+}
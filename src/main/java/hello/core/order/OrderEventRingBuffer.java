@@ -0,0 +1,231 @@
+package hello.core.order;
+
+import hello.core.member.Grade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 주문 생성 이벤트를 후속 처리(배송, 분석, 감사 로그 등)에 넘기는 링 버퍼
+ *
+ * 칸(OrderEvent)은 처음에 bufferSize개를 만들어 두고 계속 재사용하므로 발행할 때 객체를 만들지 않는다.
+ * 여러 쓰레드가 동시에 발행할 수 있다. 발행자는 cursor를 CAS로 올려서 번호를 받고, 칸을 채운 뒤 그 칸이 몇 바퀴째인지 기록한다.
+ * 핸들러마다 전용 쓰레드가 있어서, 자기 위치 다음부터 연속으로 채워진 칸을 한 번에 꺼내 처리한다. (배치)
+ *
+ * 가장 느린 핸들러보다 bufferSize만큼 앞서면 더 발행할 수 없다.
+ * publish는 자리가 날 때까지 기다리고, tryPublish는 바로 false를 돌려주고 버린 수를 센다. (배압)
+ */
+public class OrderEventRingBuffer implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(OrderEventRingBuffer.class);
+
+    private final OrderEvent[] slots;
+    private final int mask;
+    private final int indexShift;
+    // 칸마다 마지막으로 발행된 바퀴 수. 발행 번호 >>> indexShift와 같으면 그 번호의 이벤트가 채워진 것이다.
+    private final AtomicIntegerArray published;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    // 핸들러들의 최소 위치를 매번 구하지 않도록 마지막으로 구한 값을 기억해 둔다.
+    private final AtomicLong gatingCache = new AtomicLong(-1);
+    private final WaitStrategy waitStrategy;
+    private final List<Consumer> consumers = new ArrayList<>();
+    private final LongAdder handlerErrorCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private volatile boolean closed;
+
+    public OrderEventRingBuffer(int bufferSize, WaitStrategy waitStrategy, OrderEventHandler... handlers) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize는 2의 거듭제곱이어야 합니다.");
+        }
+        if (handlers.length == 0) {
+            throw new IllegalArgumentException("핸들러가 하나 이상 있어야 합니다.");
+        }
+
+        this.slots = new OrderEvent[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            slots[i] = new OrderEvent();
+        }
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.published = new AtomicIntegerArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            published.set(i, -1);
+        }
+        this.waitStrategy = waitStrategy;
+        for (OrderEventHandler handler : handlers) {
+            consumers.add(new Consumer(handler));
+        }
+    }
+
+    /**
+     * 핸들러 쓰레드를 시작한다.
+     */
+    public OrderEventRingBuffer start() {
+        for (Consumer consumer : consumers) {
+            consumer.thread.start();
+        }
+        return this;
+    }
+
+    public void publish(Order order, Grade grade) {
+        publish(order.getMemberId(), grade, order.getItemId(), order.getItemName(), order.getItemPrice(), order.getDiscountPrice());
+    }
+
+    /**
+     * 자리가 날 때까지 기다렸다가 발행한다.
+     */
+    public void publish(long memberId, Grade grade, int itemId, String itemName, int itemPrice, int discountPrice) {
+        long sequence = claim(true);
+        fill(sequence, memberId, grade, itemId, itemName, itemPrice, discountPrice);
+    }
+
+    /**
+     * @return 버퍼가 가득 차서 발행하지 못했으면 false
+     */
+    public boolean tryPublish(Order order, Grade grade) {
+        long sequence = claim(false);
+        if (sequence < 0) {
+            droppedCount.increment();
+            return false;
+        }
+        fill(sequence, order.getMemberId(), grade, order.getItemId(), order.getItemName(), order.getItemPrice(), order.getDiscountPrice());
+        return true;
+    }
+
+    public int getBufferSize() {
+        return slots.length;
+    }
+
+    public long getRemainingCapacity() {
+        return slots.length - (cursor.get() - minimumSequence(cursor.get()));
+    }
+
+    // 버퍼가 가득 차서 tryPublish가 발행하지 못한 이벤트 수
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 핸들러가 던진 예외 수. 예외는 이벤트와 함께 로그로 남기고, 그 이벤트는 건너뛰고 다음 이벤트를 처리한다.
+     * Error(OutOfMemoryError 등)는 잡지 않으므로 그 핸들러 쓰레드는 멈춘다.
+     */
+    public long getHandlerErrorCount() {
+        return handlerErrorCount.sum();
+    }
+
+    /**
+     * 더 이상 발행을 받지 않고, 핸들러들이 이미 발행된 이벤트를 모두 처리할 때까지 기다린다.
+     * 발행하는 쪽을 먼저 멈춘 다음에 호출한다.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private long claim(boolean block) {
+        int counter = 0;
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("닫힌 링 버퍼에는 발행할 수 없습니다.");
+            }
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - slots.length;
+            if (wrapPoint > gatingCache.get()) {
+                long gating = minimumSequence(current);
+                gatingCache.set(gating);
+                if (wrapPoint > gating) {
+                    if (!block) {
+                        return -1;
+                    }
+                    counter = waitStrategy.idle(counter);
+                    continue;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private void fill(long sequence, long memberId, Grade grade, int itemId, String itemName, int itemPrice, int discountPrice) {
+        int index = (int) sequence & mask;
+        slots[index].set(memberId, grade, itemId, itemName, itemPrice, discountPrice);
+        // 칸을 다 채운 뒤에 바퀴 수를 써야 핸들러가 채워진 값을 본다.
+        published.lazySet(index, (int) (sequence >>> indexShift));
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    // lower부터 upper까지 중 끊기지 않고 발행된 마지막 번호
+    private long highestPublished(long lower, long upper) {
+        for (long sequence = lower; sequence <= upper; sequence++) {
+            if (!isPublished(sequence)) {
+                return sequence - 1;
+            }
+        }
+        return upper;
+    }
+
+    private long minimumSequence(long defaultValue) {
+        long minimum = defaultValue;
+        for (Consumer consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum;
+    }
+
+    private final class Consumer implements Runnable {
+        private final OrderEventHandler handler;
+        // 이 핸들러가 처리를 끝낸 마지막 번호
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final Thread thread;
+
+        private Consumer(OrderEventHandler handler) {
+            this.handler = handler;
+            this.thread = new Thread(this, "order-event-" + handler.getClass().getSimpleName());
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int counter = 0;
+            while (true) {
+                long available = highestPublished(next, cursor.get());
+                if (available >= next) {
+                    for (long s = next; s <= available; s++) {
+                        try {
+                            handler.onEvent(slots[(int) s & mask], s, s == available);
+                        } catch (Exception e) {
+                            handlerErrorCount.increment();
+                            log.error("주문 이벤트 처리 실패. handler = {}, sequence = {}, event = {}",
+                                    handler.getClass().getSimpleName(), s, slots[(int) s & mask], e);
+                        }
+                    }
+                    sequence.lazySet(available);
+                    next = available + 1;
+                    counter = 0;
+                } else if (closed && next > cursor.get()) {
+                    return;
+                } else {
+                    counter = waitStrategy.idle(counter);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package hello.core.order;
+
+/**
+ * 회원이 등급별 주문 한도를 넘었을 때 던진다.
+ */
+public class OrderRateLimitExceededException extends RuntimeException {
+    private final long memberId;
+    private final long retryAfterNanos;
+
+    public OrderRateLimitExceededException(long memberId, long retryAfterNanos) {
+        super("주문 한도를 넘었습니다. memberId = " + memberId + ", retryAfterMillis = " + retryAfterNanos / 1_000_000);
+        this.memberId = memberId;
+        this.retryAfterNanos = retryAfterNanos;
+    }
+
+    public long getMemberId() {
+        return memberId;
+    }
+
+    // 이만큼 기다린 뒤에 다시 시도하면 받아들여진다.
+    public long getRetryAfterNanos() {
+        return retryAfterNanos;
+    }
+}
@@ -0,0 +1,184 @@
+package hello.core.order;
+
+import hello.core.member.Grade;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 회원별 주문 한도 (토큰 버킷)
+ *
+ * 회원마다 등급별 한도(초당 주문 수, 한 번에 몰아서 낼 수 있는 주문 수)만큼만 주문을 받는다.
+ * 버킷은 "다음 토큰이 비는 시각"(TAT) 하나를 AtomicLong에 두고 CAS로 고친다. (GCRA)
+ * 토큰 수를 주기적으로 채우는 쓰레드가 없고, 회원별 락도 없다.
+ *
+ * TAT가 지금보다 과거인 버킷은 가득 찬 버킷과 같아서 지워도 한도가 바뀌지 않는다.
+ * 버킷 수가 maximumMembers를 넘으면 한 쓰레드가 이런 버킷부터 지우고, 그래도 넘치면 아무 버킷이나 지운다.
+ * 아직 차지 않은 버킷이 지워진 회원은 한 번 더 몰아서 낼 수 있게 되지만, 맵이 끝없이 커지지는 않는다.
+ */
+public class OrderRateLimiter {
+    private static final Grade[] GRADES = Grade.values();
+
+    private final Map<Grade, Limit> limits;
+    private final int maximumMembers;
+    private final LongSupplier ticker;
+    private final Map<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder[] acceptedCounts = new LongAdder[GRADES.length];
+    private final LongAdder[] rejectedCounts = new LongAdder[GRADES.length];
+    private final LongAdder evictedCount = new LongAdder();
+
+    /**
+     * @param limits 등급별 한도. 모든 등급의 한도가 있어야 한다.
+     */
+    public OrderRateLimiter(Map<Grade, Limit> limits, int maximumMembers) {
+        this(limits, maximumMembers, System::nanoTime);
+    }
+
+    OrderRateLimiter(Map<Grade, Limit> limits, int maximumMembers, LongSupplier ticker) {
+        if (maximumMembers <= 0) {
+            throw new IllegalArgumentException("maximumMembers는 0보다 커야 합니다.");
+        }
+        for (Grade grade : GRADES) {
+            if (limits.get(grade) == null) {
+                throw new IllegalArgumentException(grade + " 등급의 한도가 없습니다.");
+            }
+            acceptedCounts[grade.ordinal()] = new LongAdder();
+            rejectedCounts[grade.ordinal()] = new LongAdder();
+        }
+        this.limits = new EnumMap<>(limits);
+        this.maximumMembers = maximumMembers;
+        this.ticker = ticker;
+    }
+
+    /**
+     * 주문을 받을 수 있으면 토큰 하나를 쓰고 true를 돌려준다.
+     */
+    public boolean tryAcquire(long memberId, Grade grade) {
+        return reserve(memberId, grade) == 0;
+    }
+
+    /**
+     * 주문을 받을 수 없으면 OrderRateLimitExceededException을 던진다.
+     */
+    public void acquire(long memberId, Grade grade) {
+        long retryAfterNanos = reserve(memberId, grade);
+        if (retryAfterNanos > 0) {
+            throw new OrderRateLimitExceededException(memberId, retryAfterNanos);
+        }
+    }
+
+    /**
+     * @param grade 회원 등급, null이면 BASIC 한도를 쓴다.
+     * @return 받았으면 0, 거절했으면 다시 시도할 수 있을 때까지 남은 나노초
+     */
+    public long reserve(long memberId, Grade grade) {
+        if (grade == null) {
+            grade = Grade.BASIC;
+        }
+        Limit limit = limits.get(grade);
+        AtomicLong bucket = buckets.get(memberId);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(memberId, id -> new AtomicLong(Long.MIN_VALUE));
+            if (buckets.size() > maximumMembers) {
+                evict();
+            }
+        }
+
+        long now = ticker.getAsLong();
+        while (true) {
+            long tat = bucket.get();
+            // 처음 만든 버킷이거나 오래 쉰 버킷은 지금부터 센다.
+            long base = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            long wait = base - now - limit.toleranceNanos;
+            if (wait > 0) {
+                rejectedCounts[grade.ordinal()].increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, base + limit.intervalNanos)) {
+                acceptedCounts[grade.ordinal()].increment();
+                return 0;
+            }
+        }
+    }
+
+    public long getAcceptedCount(Grade grade) {
+        return acceptedCounts[grade.ordinal()].sum();
+    }
+
+    public long getRejectedCount(Grade grade) {
+        return rejectedCounts[grade.ordinal()].sum();
+    }
+
+    public long getRejectedCount() {
+        long sum = 0;
+        for (LongAdder count : rejectedCounts) {
+            sum += count.sum();
+        }
+        return sum;
+    }
+
+    // 버킷 수가 넘쳐서 지운 버킷 수
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    public int getMemberCount() {
+        return buckets.size();
+    }
+
+    // 한 쓰레드만 지운다. 다른 쓰레드는 기다리지 않고 지나간다.
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = ticker.getAsLong();
+            // 가득 찬 버킷부터 지운다. 지운 뒤에 다시 만들어도 한도는 같다.
+            buckets.values().removeIf(bucket -> {
+                long tat = bucket.get();
+                return tat == Long.MIN_VALUE || tat - now <= 0;
+            });
+            // 그래도 넘치면 크기의 1/8을 더 비워서 매번 지우러 들어오지 않게 한다.
+            int target = maximumMembers - maximumMembers / 8;
+            Iterator<AtomicLong> iterator = buckets.values().iterator();
+            while (buckets.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictedCount.increment();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * 등급 하나의 한도. 만든 뒤에는 바뀌지 않는다.
+     */
+    public static final class Limit {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+
+        private Limit(long intervalNanos, int burst) {
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = intervalNanos * (burst - 1);
+        }
+
+        /**
+         * @param ordersPerSecond 오래 두고 보면 1초에 받는 주문 수
+         * @param burst 쉬었다가 한 번에 몰아서 받을 수 있는 주문 수
+         */
+        public static Limit perSecond(double ordersPerSecond, int burst) {
+            if (ordersPerSecond <= 0 || burst <= 0) {
+                throw new IllegalArgumentException("ordersPerSecond와 burst는 0보다 커야 합니다.");
+            }
+            return new Limit(Math.max(1, Math.round(1_000_000_000d / ordersPerSecond)), burst);
+        }
+    }
+}
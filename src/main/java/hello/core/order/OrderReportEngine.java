@@ -0,0 +1,191 @@
+package hello.core.order;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 주문 목록을 기준(key)으로 묶어서 값을 더하는 리포트 엔진
+ *
+ * 주문 목록을 반씩 나눠 ForkJoinPool에 넘기고, THRESHOLD개 이하가 되면 그 구간을 한 쓰레드가 HashMap에 모은다.
+ * 나눠서 모은 결과는 작은 쪽을 큰 쪽에 더하는 식으로 합친다.
+ * 합계는 long[1]에 더해서 주문마다 Long을 새로 만들지 않는다.
+ * 주문 목록은 ArrayList처럼 인덱스로 바로 접근할 수 있는 목록이어야 한다.
+ *
+ * 목록을 받는 메서드는 주문 전체가 힙에 올라와 있어야 한다. 주문 이력이 힙보다 클 수 있으면
+ * OrderRepository를 받는 sumBy를 쓴다. 리포지토리를 한 번 훑으면서 THRESHOLD개씩 끊어 ForkJoinPool에 넘기고,
+ * 동시에 들고 있는 구간은 병렬도의 두 배로 제한한다.
+ */
+public class OrderReportEngine {
+    private static final int THRESHOLD = 16 * 1024;
+
+    private final ForkJoinPool pool;
+
+    public OrderReportEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public OrderReportEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 리포지토리의 주문 전체를 목록으로 읽어 온다. 리포트는 이 목록으로 여러 번 돌릴 수 있다.
+     * 주문 전체를 복사하므로 주문 이력이 크면 sumBy(OrderRepository, ...)를 쓴다.
+     */
+    public static List<Order> snapshot(OrderRepository orderRepository) {
+        List<Order> orders = new ArrayList<>();
+        orderRepository.forEach(orders::add);
+        return orders;
+    }
+
+    /**
+     * @param key 묶을 기준. null을 돌려주면 그 주문은 빠진다.
+     * @param value 더할 값
+     * @return 기준별 합계
+     */
+    public <K> Map<K, Long> sumBy(List<Order> orders, Function<? super Order, ? extends K> key, ToLongFunction<? super Order> value) {
+        return toResult(pool.invoke(new SumTask<K>(orders, 0, orders.size(), key, value)));
+    }
+
+    public <K> Map<K, Long> countBy(List<Order> orders, Function<? super Order, ? extends K> key) {
+        return sumBy(orders, key, order -> 1L);
+    }
+
+    /**
+     * 리포지토리를 목록으로 복사하지 않고 한 번 훑으면서 더한다.
+     * 들고 있는 주문은 많아야 (병렬도 x 2 + 1) x THRESHOLD개다.
+     */
+    public <K> Map<K, Long> sumBy(OrderRepository orderRepository, Function<? super Order, ? extends K> key, ToLongFunction<? super Order> value) {
+        int maxInFlight = pool.getParallelism() * 2;
+        Deque<ForkJoinTask<Map<K, long[]>>> inFlight = new ArrayDeque<>();
+        Map<K, long[]> total = new HashMap<>();
+        List<Order> chunk = new ArrayList<>(THRESHOLD);
+        orderRepository.forEach(order -> {
+            chunk.add(order);
+            if (chunk.size() < THRESHOLD) {
+                return;
+            }
+            // 너무 앞서 나가지 않도록 가장 먼저 넘긴 구간이 끝나기를 기다린다.
+            if (inFlight.size() >= maxInFlight) {
+                SumTask.mergeInto(total, inFlight.removeFirst().join());
+            }
+            inFlight.addLast(pool.submit(new SumTask<K>(new ArrayList<>(chunk), 0, chunk.size(), key, value)));
+            chunk.clear();
+        });
+
+        SumTask.mergeInto(total, new SumTask<K>(chunk, 0, chunk.size(), key, value).compute());
+        for (ForkJoinTask<Map<K, long[]>> task : inFlight) {
+            SumTask.mergeInto(total, task.join());
+        }
+        return toResult(total);
+    }
+
+    /**
+     * 합계가 큰 순서로 limit개를 돌려준다.
+     */
+    public <K> Map<K, Long> top(List<Order> orders, Function<? super Order, ? extends K> key, ToLongFunction<? super Order> value, int limit) {
+        Map<K, Long> top = new LinkedHashMap<>();
+        Map<K, Long> sums = sumBy(orders, key, value);
+        sums.entrySet().stream()
+                .sorted(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .forEachOrdered(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    // 상품별 매출 (할인 후 금액)
+    public Map<String, Long> revenueByItem(List<Order> orders) {
+        return sumBy(orders, Order::getItemName, Order::calculatePrice);
+    }
+
+    // 등급별 할인 금액. 주문에는 등급이 없어서 회원을 조회해서 묶는다. 없는 회원의 주문은 빠진다.
+    public Map<Grade, Long> discountByGrade(List<Order> orders, MemberRepository memberRepository) {
+        return sumBy(orders, order -> {
+            Member member = memberRepository.findById(order.getMemberId());
+            return member == null ? null : member.getGrade();
+        }, Order::getDiscountPrice);
+    }
+
+    // 결제 금액이 큰 회원 limit명
+    public Map<Long, Long> topMembers(List<Order> orders, int limit) {
+        return top(orders, Order::getMemberId, Order::calculatePrice, limit);
+    }
+
+    private static <K> Map<K, Long> toResult(Map<K, long[]> sums) {
+        Map<K, Long> result = new HashMap<>(sums.size() * 4 / 3 + 1);
+        for (Map.Entry<K, long[]> entry : sums.entrySet()) {
+            result.put(entry.getKey(), entry.getValue()[0]);
+        }
+        return result;
+    }
+
+    private static final class SumTask<K> extends RecursiveTask<Map<K, long[]>> {
+        private final List<Order> orders;
+        private final int from;
+        private final int to;
+        private final Function<? super Order, ? extends K> key;
+        private final ToLongFunction<? super Order> value;
+
+        private SumTask(List<Order> orders, int from, int to, Function<? super Order, ? extends K> key, ToLongFunction<? super Order> value) {
+            this.orders = orders;
+            this.from = from;
+            this.to = to;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        protected Map<K, long[]> compute() {
+            if (to - from <= THRESHOLD) {
+                Map<K, long[]> sums = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    Order order = orders.get(i);
+                    K k = key.apply(order);
+                    if (k != null) {
+                        sums.computeIfAbsent(k, ignored -> new long[1])[0] += value.applyAsLong(order);
+                    }
+                }
+                return sums;
+            }
+
+            int middle = (from + to) >>> 1;
+            SumTask<K> left = new SumTask<K>(orders, from, middle, key, value);
+            left.fork();
+            Map<K, long[]> right = new SumTask<K>(orders, middle, to, key, value).compute();
+            return merge(left.join(), right);
+        }
+
+        // 작은 쪽을 큰 쪽에 더한다.
+        private static <K> Map<K, long[]> merge(Map<K, long[]> a, Map<K, long[]> b) {
+            Map<K, long[]> large = a.size() >= b.size() ? a : b;
+            mergeInto(large, large == a ? b : a);
+            return large;
+        }
+
+        private static <K> void mergeInto(Map<K, long[]> target, Map<K, long[]> source) {
+            for (Map.Entry<K, long[]> entry : source.entrySet()) {
+                long[] sum = target.get(entry.getKey());
+                if (sum == null) {
+                    target.put(entry.getKey(), entry.getValue());
+                } else {
+                    sum[0] += entry.getValue()[0];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package hello.core.order;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface OrderRepository {
+    void save(Order order);
+
+    /**
+     * 여러 주문을 한 번에 저장한다. 구현체는 디스크 반영을 한 번에 처리하도록 재정의한다.
+     */
+    default void saveAll(Collection<Order> orders) {
+        for (Order order : orders) {
+            save(order);
+        }
+    }
+
+    /**
+     * @param memberId
+     * @return 회원의 주문을 저장한 순서대로, 없으면 빈 목록
+     */
+    List<Order> findByMemberId(Long memberId);
+
+    /**
+     * @param memberId
+     * @return 지운 주문 수
+     */
+    int deleteByMemberId(Long memberId);
+
+    /**
+     * 저장된 주문 전체를 하나씩 넘겨준다. 순서는 구현체마다 다르다.
+     */
+    void forEach(Consumer<? super Order> action);
+}
@@ -2,4 +2,41 @@ package hello.core.order;
 
 public interface OrderService {
     Order create(Long memberId, String itemName, int itemPrice);
+
+    /**
+     * 상품 목록에 등록된 상품으로 주문한다. 이름과 가격은 상품 목록에서 가져온다.
+     * @param itemId ItemCatalog에 등록된 상품 id
+     */
+    Order create(Long memberId, int itemId);
+
+    /**
+     * 클라이언트가 재시도해도 주문이 한 번만 만들어지도록 멱등 키를 받는다.
+     * 같은 회원이 같은 키로 다시 부르면 처음 만든 Order를 그대로 돌려준다. 키는 회원마다 따로 센다.
+     * @param idempotencyKey null이면 키 없이 새로 만든다.
+     * @throws IdempotencyKeyConflictException 같은 회원이 같은 키로 상품이나 가격이 다른 주문을 보냈다.
+     * @throws MemberNotFoundException 회원이 없다.
+     */
+    Order create(String idempotencyKey, Long memberId, String itemName, int itemPrice);
+
+    /**
+     * 여러 주문의 가격을 한 번에 매긴다. 같은 회원은 한 번만 조회한다.
+     * @param batch
+     * @return batch와 같은 순서의 결과
+     */
+    OrderBatchResult createAll(OrderBatch batch);
+
+    /**
+     * Order를 만들지 않고 할인 금액만 계산한다. 같은 입력으로 create를 부를 때와 할인 금액이 같다.
+     * @param memberId
+     * @param itemName
+     * @param itemPrice
+     * @return 할인 금액
+     */
+    int quoteDiscount(long memberId, String itemName, int itemPrice);
+
+    /**
+     * 할인 금액과 최종 가격을 result에 채운다. 같은 result를 재사용하면 객체를 만들지 않는다.
+     * @return result
+     */
+    PriceQuote quote(long memberId, String itemName, int itemPrice, PriceQuote result);
 }
@@ -1,17 +1,36 @@
 package hello.core.order;
 
 import hello.core.discount.DiscountPolicy;
+import hello.core.item.ItemCatalog;
+import hello.core.member.Grade;
 import hello.core.member.Member;
 import hello.core.member.MemberRepository;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
 @Component
 // @RequiredArgsConstructor // 아래 코드를 그대로 만들어주는 에노테이션
 public class OrderServiceImpl implements OrderService {
+    private static final Logger log = LoggerFactory.getLogger(OrderServiceImpl.class);
+
     private MemberRepository memberRepository;
     private DiscountPolicy discountPolicy;
+    private OrderRepository orderRepository;
+    private OrderEventRingBuffer orderEvents;
+    // 링 버퍼가 가득 찼을 때 할 일. 기본은 자리가 날 때까지 기다린다.
+    private OverflowPolicy eventOverflowPolicy = OverflowPolicy.BLOCK;
+    private OrderAggregates orderAggregates;
+    private OrderRateLimiter orderRateLimiter;
+    private ItemCatalog itemCatalog;
+    // 멱등 키를 최소 10분 동안, 최대 10만 개까지 기억한다.
+    private IdempotencyCache<Order> idempotencyCache = new IdempotencyCache<>(100_000, Duration.ofMinutes(10));
 
     // 생성자 주입을 통해 초기에 딱 한번만 객체를 주입해준다.
     // 불변, 필수 의존관계에서 사용한다.
@@ -33,6 +52,44 @@ public class OrderServiceImpl implements OrderService {
         this.memberRepository = memberRepository;
     }
 
+    // 주문 저장소는 없어도 되는 의존관계라 required = false로 둔다. 없으면 주문을 저장하지 않는다.
+    @Autowired(required = false)
+    public void setOrderRepository(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    // 주문 후속 처리는 링 버퍼로 넘겨서 create가 기다리지 않게 한다. 없으면 발행하지 않는다.
+    @Autowired(required = false)
+    public void setOrderEvents(OrderEventRingBuffer orderEvents) {
+        this.orderEvents = orderEvents;
+    }
+
+    public void setEventOverflowPolicy(OverflowPolicy eventOverflowPolicy) {
+        this.eventOverflowPolicy = eventOverflowPolicy;
+    }
+
+    // 집계는 가벼워서 create 안에서 바로 갱신한다. 링 버퍼 핸들러로 붙여도 된다.
+    @Autowired(required = false)
+    public void setOrderAggregates(OrderAggregates orderAggregates) {
+        this.orderAggregates = orderAggregates;
+    }
+
+    // 회원별 주문 한도. 없으면 한도 없이 받는다.
+    @Autowired(required = false)
+    public void setOrderRateLimiter(OrderRateLimiter orderRateLimiter) {
+        this.orderRateLimiter = orderRateLimiter;
+    }
+
+    // 상품 id로 주문할 때 쓰는 상품 목록. 없으면 이름과 가격을 받는 create만 쓸 수 있다.
+    @Autowired(required = false)
+    public void setItemCatalog(ItemCatalog itemCatalog) {
+        this.itemCatalog = itemCatalog;
+    }
+
+    public void setIdempotencyCache(IdempotencyCache<Order> idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+
     //테스트 용도
     public MemberRepository getMemberRepository() {
         return memberRepository;
@@ -40,9 +97,118 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public Order create(Long memberId, String itemName, int itemPrice) {
+        return create(memberId, ItemCatalog.UNKNOWN_ID, itemName, itemPrice);
+    }
+
+    @Override
+    public Order create(Long memberId, int itemId) {
+        if (itemCatalog == null) {
+            throw new IllegalStateException("상품 목록이 설정되지 않았습니다.");
+        }
+        // 상품 목록의 이름을 그대로 써서 주문마다 이름을 따로 갖지 않는다.
+        return create(memberId, itemId, itemCatalog.getName(itemId), itemCatalog.getPrice(itemId));
+    }
+
+    private Order create(Long memberId, int itemId, String itemName, int itemPrice) {
         Member member = memberRepository.findById(memberId);
-        int discountPrice = discountPolicy.discount(member, itemPrice);
+        if (member == null) {
+            throw new MemberNotFoundException(memberId);
+        }
+        // 한도를 넘은 주문은 할인 계산이나 저장 전에 거절한다.
+        if (orderRateLimiter != null) {
+            orderRateLimiter.acquire(memberId, member.getGrade());
+        }
+        int discountPrice = discountPolicy.discount(member, itemName, itemPrice);
+
+        Order order = new Order(memberId, itemId, itemName, itemPrice, discountPrice);
+        if (orderRepository != null) {
+            orderRepository.save(order);
+        }
+        if (orderAggregates != null) {
+            orderAggregates.record(order, member.getGrade());
+        }
+        if (orderEvents != null) {
+            publishEvent(order, member.getGrade());
+        }
+        return order;
+    }
+
+    private void publishEvent(Order order, Grade grade) {
+        if (eventOverflowPolicy == OverflowPolicy.BLOCK) {
+            orderEvents.publish(order, grade);
+        } else if (!orderEvents.tryPublish(order, grade)) {
+            // 어느 주문의 이벤트를 잃었는지 남겨서 나중에 다시 보낼 수 있게 한다.
+            log.warn("주문 이벤트 버퍼가 가득 차서 이벤트를 버렸습니다. order = {}, grade = {}", order, grade);
+        }
+    }
+
+    @Override
+    public Order create(String idempotencyKey, Long memberId, String itemName, int itemPrice) {
+        if (idempotencyKey == null) {
+            return create(memberId, itemName, itemPrice);
+        }
+        // 키는 회원별로 나눈다. 다른 회원이 같은 키를 보내도 남의 주문을 돌려주지 않는다.
+        Order order = idempotencyCache.computeIfAbsent(memberId + ":" + idempotencyKey, () -> create(memberId, itemName, itemPrice));
+        // 같은 회원이 같은 키로 다른 주문을 보냈으면 재시도가 아니므로 거절한다.
+        if (order.getItemPrice() != itemPrice || !Objects.equals(order.getItemName(), itemName)) {
+            throw new IdempotencyKeyConflictException(idempotencyKey, memberId);
+        }
+        return order;
+    }
+
+    @Override
+    public int quoteDiscount(long memberId, String itemName, int itemPrice) {
+        // long으로 조회한다. findById(long)을 재정의한 ShardedMemberRepository는 회원 id를 박싱하지 않고,
+        // 나머지는 기본 구현이 Long으로 박싱해서 조회한다.
+        Member member = memberRepository.findById(memberId);
+        if (member == null) {
+            throw new MemberNotFoundException(memberId);
+        }
+        // create와 같은 할인을 내도록 상품 이름까지 넘긴다.
+        return discountPolicy.discount(member, itemName, itemPrice);
+    }
+
+    @Override
+    public PriceQuote quote(long memberId, String itemName, int itemPrice, PriceQuote result) {
+        result.set(memberId, itemName, itemPrice, quoteDiscount(memberId, itemName, itemPrice));
+        return result;
+    }
+
+    @Override
+    public OrderBatchResult createAll(OrderBatch batch) {
+        int size = batch.size();
+        long[] orderMemberIds = batch.memberIds();
+        String[] itemNames = batch.itemNames();
+        int[] itemPrices = batch.itemPrices();
+
+        // 회원 id별로 번호를 붙여서 중복 없는 id 목록을 만든다. (선형 탐사 해시 테이블)
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        long[] slotIds = new long[capacity];
+        int[] slotIndexes = new int[capacity]; // 0이면 빈 칸, 아니면 회원 번호 + 1
+        long[] memberIds = new long[Math.max(size, 1)];
+        int[] memberIndexes = new int[size];
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            long memberId = orderMemberIds[i];
+            int slot = (int) ((memberId * 0x9e3779b97f4a7c15L) >>> 33) & (capacity - 1);
+            while (slotIndexes[slot] != 0 && slotIds[slot] != memberId) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (slotIndexes[slot] == 0) {
+                slotIds[slot] = memberId;
+                memberIds[distinct] = memberId;
+                slotIndexes[slot] = ++distinct;
+            }
+            memberIndexes[i] = slotIndexes[slot] - 1;
+        }
+
+        // 같은 회원은 한 번만 조회한다.
+        Member[] members = memberRepository.findAllById(Arrays.copyOf(memberIds, distinct)).toArray(new Member[0]);
 
-        return new Order(memberId, itemName, itemPrice, discountPrice);
+        int[] discountPrices = new int[size];
+        for (int i = 0; i < size; i++) {
+            discountPrices[i] = discountPolicy.discount(members[memberIndexes[i]], itemNames[i], itemPrices[i]);
+        }
+        return new OrderBatchResult(batch, discountPrices);
     }
 }
@@ -0,0 +1,50 @@
+package hello.core.order;
+
+/**
+ * 주문 집계의 한 시점 값. 만든 뒤에는 바뀌지 않는다.
+ */
+public final class OrderTotals {
+    public static final OrderTotals EMPTY = new OrderTotals(0, 0, 0);
+
+    private final long orderCount;
+    private final long grossAmount;
+    private final long discountAmount;
+
+    public OrderTotals(long orderCount, long grossAmount, long discountAmount) {
+        this.orderCount = orderCount;
+        this.grossAmount = grossAmount;
+        this.discountAmount = discountAmount;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    // 할인 전 상품 가격 합계
+    public long getGrossAmount() {
+        return grossAmount;
+    }
+
+    public long getDiscountAmount() {
+        return discountAmount;
+    }
+
+    // 실제 결제 금액 합계
+    public long getNetAmount() {
+        return grossAmount - discountAmount;
+    }
+
+    public OrderTotals plus(OrderTotals other) {
+        return new OrderTotals(orderCount + other.orderCount, grossAmount + other.grossAmount, discountAmount + other.discountAmount);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderTotals{" +
+                "orderCount=" + orderCount +
+                ", grossAmount=" + grossAmount +
+                ", discountAmount=" + discountAmount +
+                ", netAmount=" + getNetAmount() +
+                '}';
+    }
+}
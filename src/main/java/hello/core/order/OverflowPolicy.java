@@ -0,0 +1,11 @@
+package hello.core.order;
+
+/**
+ * 주문 이벤트 링 버퍼가 가득 찼을 때 create가 할 일
+ */
+public enum OverflowPolicy {
+    // 자리가 날 때까지 기다린다. 이벤트를 잃지 않는 대신 핸들러가 느리면 create도 느려진다. (배압)
+    BLOCK,
+    // 기다리지 않고 이벤트를 버린다. 어느 주문의 이벤트를 버렸는지 경고 로그로 남긴다.
+    DROP
+}
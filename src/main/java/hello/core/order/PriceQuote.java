@@ -0,0 +1,50 @@
+package hello.core.order;
+
+/**
+ * 가격 견적 결과를 담는 재사용 가능한 객체
+ * OrderService.quote에 같은 객체를 계속 넘기면 견적마다 객체를 만들지 않는다.
+ * 값을 바꾸는 객체라 쓰레드 간에 공유하지 않는다.
+ */
+public final class PriceQuote {
+    private long memberId;
+    private String itemName;
+    private int itemPrice;
+    private int discountPrice;
+
+    void set(long memberId, String itemName, int itemPrice, int discountPrice) {
+        this.memberId = memberId;
+        this.itemName = itemName;
+        this.itemPrice = itemPrice;
+        this.discountPrice = discountPrice;
+    }
+
+    public long getMemberId() {
+        return memberId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public int getItemPrice() {
+        return itemPrice;
+    }
+
+    public int getDiscountPrice() {
+        return discountPrice;
+    }
+
+    public int calculatePrice() {
+        return itemPrice - discountPrice;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceQuote{" +
+                "memberId=" + memberId +
+                ", itemName='" + itemName + '\'' +
+                ", itemPrice=" + itemPrice +
+                ", discountPrice=" + discountPrice +
+                '}';
+    }
+}
@@ -0,0 +1,112 @@
+package hello.core.order;
+
+import hello.core.member.Grade;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DiscountSimulator의 결과. 만든 뒤에는 바뀌지 않는다.
+ * 정책은 이름으로 찾고, 첫 번째 정책이 비교 기준이다.
+ */
+public final class SimulationReport {
+    private static final Grade[] GRADES = Grade.values();
+
+    private final String[] names;
+    private final DiscountSimulator.Totals totals;
+
+    SimulationReport(String[] names, DiscountSimulator.Totals totals) {
+        this.names = names;
+        this.totals = totals;
+    }
+
+    public String getBaselineName() {
+        return names[0];
+    }
+
+    // 기준 정책이 맨 앞에 온다.
+    public List<String> getPolicyNames() {
+        return List.of(names);
+    }
+
+    // 회원이 있어서 계산한 주문 수
+    public long getOrderCount() {
+        return Arrays.stream(totals.orderCounts).sum();
+    }
+
+    public long getOrderCount(Grade grade) {
+        return totals.orderCounts[grade.ordinal()];
+    }
+
+    // 회원이 없어서 건너뛴 주문 수
+    public long getSkippedCount() {
+        return totals.skipped;
+    }
+
+    // 할인 전 상품 가격 합계
+    public long getGrossAmount() {
+        return Arrays.stream(totals.grossAmounts).sum();
+    }
+
+    public long getTotalDiscount(String policy) {
+        return Arrays.stream(totals.discounts[indexOf(policy)]).sum();
+    }
+
+    public long getGradeDiscount(String policy, Grade grade) {
+        return totals.discounts[indexOf(policy)][grade.ordinal()];
+    }
+
+    public Map<Grade, Long> getGradeDiscounts(String policy) {
+        long[] discounts = totals.discounts[indexOf(policy)];
+        Map<Grade, Long> result = new EnumMap<>(Grade.class);
+        for (Grade grade : GRADES) {
+            result.put(grade, discounts[grade.ordinal()]);
+        }
+        return result;
+    }
+
+    /**
+     * @return 기준 정책보다 더 할인하는 금액. 음수면 덜 할인한다.
+     */
+    public long getDifference(String policy) {
+        return getTotalDiscount(policy) - getTotalDiscount(names[0]);
+    }
+
+    public long getGradeDifference(String policy, Grade grade) {
+        return getGradeDiscount(policy, grade) - getGradeDiscount(names[0], grade);
+    }
+
+    // 기준 정책보다 할인을 더 받는 주문 수
+    public long getIncreasedCount(String policy) {
+        return totals.increased[indexOf(policy)];
+    }
+
+    // 기준 정책보다 할인을 덜 받는 주문 수
+    public long getDecreasedCount(String policy) {
+        return totals.decreased[indexOf(policy)];
+    }
+
+    private int indexOf(String policy) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(policy)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("시뮬레이션하지 않은 정책입니다. policy = " + policy);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SimulationReport{orderCount=").append(getOrderCount())
+                .append(", skipped=").append(totals.skipped)
+                .append(", grossAmount=").append(getGrossAmount());
+        for (String name : names) {
+            sb.append(", ").append(name).append("={total=").append(getTotalDiscount(name))
+                    .append(", byGrade=").append(getGradeDiscounts(name))
+                    .append(", difference=").append(getDifference(name)).append('}');
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,53 @@
+package hello.core.order;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 링 버퍼가 비었을 때 핸들러가, 가득 찼을 때 발행자가 기다리는 방법
+ */
+public enum WaitStrategy {
+    // 코어 하나를 계속 쓰는 대신 지연이 가장 짧다.
+    BUSY_SPIN {
+        @Override
+        int idle(int counter) {
+            Thread.onSpinWait();
+            return counter + 1;
+        }
+    },
+    // 잠깐 돌다가 다른 쓰레드에게 코어를 양보한다.
+    YIELDING {
+        @Override
+        int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    },
+    // 돌고, 양보하고, 그래도 없으면 잠깐씩 잠든다. CPU를 가장 적게 쓴다.
+    SLEEPING {
+        @Override
+        int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (counter < SPIN_TRIES * 2) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+            return counter + 1;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final long SLEEP_NANOS = 100_000;
+
+    /**
+     * 한 번 기다린다.
+     * @param counter 이번 대기에서 지금까지 기다린 횟수
+     * @return 다음에 넘겨줄 횟수
+     */
+    abstract int idle(int counter);
+}
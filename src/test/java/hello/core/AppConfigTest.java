@@ -0,0 +1,103 @@
+package hello.core;
+
+import hello.core.discount.DiscountSettingsWatcher;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberService;
+import hello.core.member.ShardedMemberRepository;
+import hello.core.order.Order;
+import hello.core.order.OrderService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AppConfigTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("할인 설정 파일을 지켜보는 빈이 있으면 AppConfig의 주문 서비스가 다시 읽은 설정으로 할인한다.")
+    void orderServiceFollowsReload() throws Exception {
+        // given
+        Path file = directory.resolve("discount.properties");
+        write(file, "discount.rate-percent=10\n", 1);
+        AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext();
+        ac.registerBean("discountSettingsWatcher", DiscountSettingsWatcher.class,
+                () -> new DiscountSettingsWatcher(file, Duration.ofSeconds(1)));
+        ac.register(AppConfig.class);
+        ac.refresh();
+
+        MemberService memberService = ac.getBean(MemberService.class);
+        OrderService orderService = ac.getBean(OrderService.class);
+        DiscountSettingsWatcher watcher = ac.getBean(DiscountSettingsWatcher.class);
+        memberService.join(new Member(1L, "memberVIP", Grade.VIP));
+        assertThat(orderService.create(1L, "itemA", 10000).getDiscountPrice()).isEqualTo(1000);
+
+        // when
+        write(file, "discount.rate-percent=25\n", 2);
+        watcher.poll();
+
+        // then
+        assertThat(orderService.create(1L, "itemA", 10000).getDiscountPrice()).isEqualTo(2500);
+        ac.close();
+    }
+
+    @Test
+    @DisplayName("할인 설정 파일을 지켜보는 빈이 없으면 기본 설정(10%)으로 할인한다.")
+    void orderServiceWithoutWatcher() {
+        // given
+        AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext(AppConfig.class);
+        MemberService memberService = ac.getBean(MemberService.class);
+        OrderService orderService = ac.getBean(OrderService.class);
+        memberService.join(new Member(1L, "memberVIP", Grade.VIP));
+
+        // when
+        Order order = orderService.create(1L, "itemA", 10000);
+
+        // then
+        assertThat(order.getDiscountPrice()).isEqualTo(1000);
+        ac.close();
+    }
+
+    @Test
+    @DisplayName("member.shards를 설정하면 회원 저장소를 그 수만큼 나눈다.")
+    void memberShards() {
+        // given
+        AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext();
+        ac.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of("member.shards", "3")));
+        ac.register(AppConfig.class);
+        // when
+        ac.refresh();
+        // then
+        ShardedMemberRepository memberRepository = ac.getBean(ShardedMemberRepository.class);
+        assertThat(memberRepository.getShardCount()).isEqualTo(3);
+        ac.close();
+    }
+
+    @Test
+    @DisplayName("member.shards가 없으면 코어 수만큼 나눈다.")
+    void memberShardsDefault() {
+        AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext(AppConfig.class);
+
+        ShardedMemberRepository memberRepository = ac.getBean(ShardedMemberRepository.class);
+
+        assertThat(memberRepository.getShardCount()).isEqualTo(Runtime.getRuntime().availableProcessors());
+        ac.close();
+    }
+
+    // 파일 시스템의 수정 시각 단위가 거칠어도 바뀐 것이 보이도록 version초씩 앞당겨 둔다.
+    private static void write(Path file, String content, int version) throws Exception {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000_000_000L + version * 1000L));
+    }
+}
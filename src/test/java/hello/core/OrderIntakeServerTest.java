@@ -0,0 +1,214 @@
+package hello.core;
+
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+import hello.core.member.MemberServiceImpl;
+import hello.core.member.ShardedMemberRepository;
+import hello.core.order.Order;
+import hello.core.order.OrderRateLimiter;
+import hello.core.order.OrderServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderIntakeServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private OrderIntakeServer server;
+
+    @AfterEach
+    void afterEach() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void joinAndOrder() throws Exception {
+        // given
+        server = start(new ShardedMemberRepository(1), 16);
+        // when
+        HttpResponse<String> joined = post("/members", "id=1&name=member1&grade=VIP");
+        HttpResponse<String> ordered = post("/orders", "memberId=1&itemName=item&itemPrice=10000");
+        // then
+        assertThat(joined.statusCode()).isEqualTo(201);
+        assertThat(ordered.statusCode()).isEqualTo(201);
+        assertThat(ordered.body()).contains("\"discountPrice\":1000");
+        assertThat(ordered.body()).contains("\"price\":9000");
+    }
+
+    @Test
+    void badRequest() throws Exception {
+        server = start(new ShardedMemberRepository(1), 16);
+
+        assertThat(post("/members", "id=1&grade=GOLD").statusCode()).isEqualTo(400);
+        assertThat(post("/orders", "memberId=abc&itemName=item&itemPrice=1").statusCode()).isEqualTo(400);
+        assertThat(post("/orders", "memberId=99&itemName=item&itemPrice=1").statusCode()).isEqualTo(404);
+
+        post("/members", "id=1&name=member1&grade=VIP");
+        assertThat(post("/orders", "memberId=1&itemName=item&itemPrice=4294967296").statusCode()).isEqualTo(400);
+        assertThat(post("/orders", "memberId=1&itemName=item&itemPrice=-1").statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("처리하지 못한 예외는 500으로 응답한다.")
+    void internalError() throws Exception {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy()) {
+            @Override
+            public Order create(String idempotencyKey, Long memberId, String itemName, int itemPrice) {
+                throw new IllegalStateException("링 버퍼가 닫혔습니다.");
+            }
+        };
+        server = new OrderIntakeServer(new MemberServiceImpl(memberRepository), orderService, 0, 16);
+        server.start();
+        post("/members", "id=1&name=member1&grade=VIP");
+        // when
+        HttpResponse<String> response = post("/orders", "memberId=1&itemName=item&itemPrice=10000");
+        // then
+        assertThat(response.statusCode()).isEqualTo(500);
+        assertThat(server.getErrorCount()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("회원별 주문 한도를 넘으면 429로 거절한다.")
+    void rateLimited() throws Exception {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        Map<Grade, OrderRateLimiter.Limit> limits = new EnumMap<>(Grade.class);
+        limits.put(Grade.BASIC, OrderRateLimiter.Limit.perSecond(0.1, 2));
+        limits.put(Grade.VIP, OrderRateLimiter.Limit.perSecond(0.1, 2));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setOrderRateLimiter(new OrderRateLimiter(limits, 100));
+        server = new OrderIntakeServer(new MemberServiceImpl(memberRepository), orderService, 0, 16);
+        server.start();
+        post("/members", "id=1&name=member1&grade=BASIC");
+        // when
+        int first = post("/orders", "memberId=1&itemName=item&itemPrice=10000").statusCode();
+        int second = post("/orders", "memberId=1&itemName=item&itemPrice=10000").statusCode();
+        HttpResponse<String> third = post("/orders", "memberId=1&itemName=item&itemPrice=10000");
+        // then
+        assertThat(first).isEqualTo(201);
+        assertThat(second).isEqualTo(201);
+        assertThat(third.statusCode()).isEqualTo(429);
+        assertThat(third.headers().firstValue("Retry-After").orElse(null)).isEqualTo("10");
+    }
+
+    /**
+     * 주문마다 회원 조회가 20ms 걸리고 동시 처리 한도가 4일 때 요청 100개를 한꺼번에 보낸다.
+     * 한도를 넘는 요청은 기다리지 않고 503으로 바로 거절되어야 하고, 요청을 처리하는 쓰레드도 4개를 넘지 않아야 한다.
+     */
+    @Test
+    @DisplayName("동시 처리 한도를 넘으면 503으로 바로 거절한다.")
+    void loadShedding() throws Exception {
+        ShardedMemberRepository members = new ShardedMemberRepository(1);
+        server = start(new SlowMemberRepository(members, 20), 4);
+        members.save(new Member(1L, "member1", Grade.VIP));
+
+        List<CompletableFuture<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            long begin = System.nanoTime();
+            futures.add(client.sendAsync(request("/orders", "memberId=1&itemName=item&itemPrice=10000"), HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> new long[]{response.statusCode(), System.nanoTime() - begin}));
+        }
+
+        int accepted = 0;
+        List<Long> acceptedLatencies = new ArrayList<>();
+        List<Long> shedLatencies = new ArrayList<>();
+        for (CompletableFuture<long[]> future : futures) {
+            long[] result = future.join();
+            if (result[0] == 201) {
+                accepted++;
+                acceptedLatencies.add(result[1]);
+            } else {
+                assertThat(result[0]).isEqualTo(503L);
+                shedLatencies.add(result[1]);
+            }
+        }
+
+        System.out.println("accepted = " + accepted + ", shed = " + server.getShedCount()
+                + ", accepted p99 = " + percentile(acceptedLatencies, 99) / 1_000_000 + "ms"
+                + ", shed p99 = " + percentile(shedLatencies, 99) / 1_000_000 + "ms");
+        assertThat(accepted).isGreaterThan(0);
+        assertThat(server.getShedCount()).isGreaterThan(0L);
+        assertThat(accepted + server.getShedCount()).isEqualTo(100L);
+        long workers = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("order-intake-"))
+                .count();
+        assertThat(workers).isLessThanOrEqualTo(4L);
+    }
+
+    private OrderIntakeServer start(MemberRepository memberRepository, int maxConcurrentRequests) {
+        OrderIntakeServer server = new OrderIntakeServer(new MemberServiceImpl(memberRepository),
+                new OrderServiceImpl(memberRepository, new RateDiscountPolicy()), 0, maxConcurrentRequests);
+        server.start();
+        return server;
+    }
+
+    private HttpResponse<String> post(String path, String form) throws Exception {
+        return client.send(request(path, form), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String path, String form) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    private static long percentile(List<Long> values, int percentile) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        long[] sorted = values.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    // 조회할 때마다 잠깐 잠드는 리포지토리
+    static class SlowMemberRepository implements MemberRepository {
+        private final MemberRepository delegate;
+        private final long delayMillis;
+
+        SlowMemberRepository(MemberRepository delegate, long delayMillis) {
+            this.delegate = delegate;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void save(Member member) {
+            delegate.save(member);
+        }
+
+        @Override
+        public Member findById(Long memberId) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return delegate.findById(memberId);
+        }
+
+        @Override
+        public void forEach(Consumer<? super Member> action) {
+            delegate.forEach(action);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package hello.core.discount;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DiscountRouterTest {
+    private final Member vip = new Member(1L, "memberVIP", Grade.VIP);
+    private final Member basic = new Member(2L, "memberBasic", Grade.BASIC);
+    private Map<String, DiscountPolicy> policyMap;
+    private DiscountRouter router;
+
+    @BeforeEach
+    void beforeEach() {
+        policyMap = new HashMap<>();
+        policyMap.put("rateDiscountPolicy", new RateDiscountPolicy());
+        policyMap.put("fixDiscountPolicy", new FixDiscountPolicy());
+        policyMap.put("basicDiscountPolicy", RuleDiscountPolicy.parse("BASIC * 0 5%"));
+        router = new DiscountRouter(policyMap);
+    }
+
+    @Test
+    @DisplayName("할인 코드를 이름 순서로 번호를 붙이고, 번호로 정책을 찾는다.")
+    void codeOf() {
+        // when
+        int fix = router.codeOf("fixDiscountPolicy");
+        int rate = router.codeOf("rateDiscountPolicy");
+        // then
+        assertThat(router.size()).isEqualTo(3);
+        assertThat(router.codeOf("basicDiscountPolicy")).isEqualTo(0);
+        assertThat(fix).isEqualTo(1);
+        assertThat(router.getCode(rate)).isEqualTo("rateDiscountPolicy");
+        assertThat(router.discount(vip, 10000, fix)).isEqualTo(1000);
+        assertThat(router.discount(vip, 20000, rate)).isEqualTo(2000);
+        assertThatThrownBy(() -> router.codeOf("unknown"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("겹쳐 적용하면 앞 정책이 할인하고 남은 금액에 다음 정책을 적용한다.")
+    void stack() {
+        // given
+        int[] fixThenRate = router.stackOf("fixDiscountPolicy", "rateDiscountPolicy");
+        int[] rateThenFix = router.stackOf("rateDiscountPolicy", "fixDiscountPolicy");
+        // then
+        assertThat(router.discount(vip, "item", 10000, fixThenRate)).isEqualTo(1000 + 900);
+        assertThat(router.discount(vip, "item", 10000, rateThenFix)).isEqualTo(1000 + 1000);
+        // 할인 합계는 상품 가격을 넘지 않는다.
+        assertThat(router.discount(vip, "item", 500, fixThenRate)).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("등급마다 정해 둔 정책들을 겹쳐서 적용한다.")
+    void gradeStacks() {
+        // given
+        Map<Grade, List<String>> stacks = new EnumMap<>(Grade.class);
+        stacks.put(Grade.VIP, List.of("rateDiscountPolicy", "fixDiscountPolicy"));
+        stacks.put(Grade.BASIC, List.of("basicDiscountPolicy"));
+        // when
+        int before = router.discount(vip, "item", 10000);
+        router.setGradeStacks(stacks);
+        // then
+        assertThat(before).isEqualTo(0);
+        assertThat(router.discount(vip, "item", 10000)).isEqualTo(2000);
+        assertThat(router.discount(basic, "item", 10000)).isEqualTo(500);
+        assertThat(router.getGradeStack(Grade.BASIC)).containsExactly(0);
+    }
+
+    /**
+     * AllBeanTest의 DiscountService처럼 주문마다 Map에서 이름으로 찾는 것과, 번호로 배열에서 찾는 것을 비교한다.
+     */
+    @Test
+    void benchmark() {
+        // given
+        String[] names = {"rateDiscountPolicy", "fixDiscountPolicy", "basicDiscountPolicy"};
+        // 요청마다 새로 받은 코드 문자열이라 hashCode가 캐시되어 있지 않다.
+        String[] requested = new String[1024];
+        int[] codes = new int[1024];
+        for (int i = 0; i < requested.length; i++) {
+            requested[i] = new String(names[i % 3].toCharArray());
+            codes[i] = router.codeOf(requested[i]);
+        }
+        Member[] members = {vip, basic, vip, vip};
+        int calls = 4_000_000;
+
+        // when
+        long mapBest = Long.MAX_VALUE;
+        long routerBest = Long.MAX_VALUE;
+        long mapSum = 0;
+        long routerSum = 0;
+        for (int round = 0; round < 5; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                mapSum += policyMap.get(requested[i & 1023]).discount(members[i & 3], 10000 + (i & 1023));
+            }
+            mapBest = Math.min(mapBest, System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                routerSum += router.discount(members[i & 3], 10000 + (i & 1023), codes[i & 1023]);
+            }
+            routerBest = Math.min(routerBest, System.nanoTime() - begin);
+        }
+
+        // then
+        System.out.println("Map<String, DiscountPolicy> = " + String.format("%.2f", (double) mapBest / calls) + "ns/call"
+                + ", DiscountRouter = " + String.format("%.2f", (double) routerBest / calls) + "ns/call");
+        assertThat(routerSum).isEqualTo(mapSum);
+    }
+}
@@ -0,0 +1,114 @@
+package hello.core.discount;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DiscountSettingsWatcherTest {
+    @TempDir
+    Path directory;
+
+    private final Member vip = new Member(1L, "memberVIP", Grade.VIP);
+    private DiscountSettingsWatcher watcher;
+
+    @AfterEach
+    void afterEach() {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    @Test
+    @DisplayName("파일이 없으면 기본 설정을 쓰고, 파일이 생기면 읽는다.")
+    void loadWhenCreated() throws Exception {
+        // given
+        Path file = directory.resolve("discount.properties");
+        watcher = new DiscountSettingsWatcher(file, Duration.ofMillis(10));
+        RateDiscountPolicy rate = new RateDiscountPolicy(watcher);
+        FixDiscountPolicy fix = new FixDiscountPolicy(watcher);
+        assertThat(rate.discount(vip, 10000)).isEqualTo(1000);
+        // when
+        write(file, "discount.rate-percent=20\ndiscount.fix-amount=500\n", 1);
+        boolean reloaded = watcher.poll();
+        // then
+        assertThat(reloaded).isTrue();
+        assertThat(rate.discount(vip, 10000)).isEqualTo(2000);
+        assertThat(fix.discount(vip, 10000)).isEqualTo(500);
+        assertThat(watcher.poll()).isFalse();
+        assertThat(watcher.getReloadCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("형식이 틀린 파일은 무시하고 이전 설정을 그대로 쓴다.")
+    void keepPreviousOnError() throws Exception {
+        // given
+        Path file = directory.resolve("discount.properties");
+        write(file, "discount.rate-percent=15\n", 1);
+        watcher = new DiscountSettingsWatcher(file, Duration.ofMillis(10));
+        // when
+        write(file, "discount.rate-percent=150\n", 2);
+        watcher.poll();
+        write(file, "discount.rate-percent=abc\n", 3);
+        watcher.poll();
+        // then
+        assertThat(watcher.get().getRatePercent()).isEqualTo(15);
+        assertThat(watcher.getErrorCount()).isEqualTo(2);
+    }
+
+    /**
+     * 할인을 계속 계산하는 쓰레드가 있는 동안 파일을 바꾸고, pollInterval 안팎에 새 값이 보이는지 잰다.
+     */
+    @Test
+    @DisplayName("파일을 바꾸면 계산 중인 쓰레드에도 곧 반영된다.")
+    void visibleToRunningThreads() throws Exception {
+        // given
+        Path file = directory.resolve("discount.properties");
+        write(file, "discount.rate-percent=10\n", 1);
+        watcher = new DiscountSettingsWatcher(file, Duration.ofMillis(20));
+        watcher.start();
+        RateDiscountPolicy rate = new RateDiscountPolicy(watcher);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong seenAt = new AtomicLong();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            started.countDown();
+            while (running.get()) {
+                if (rate.discount(vip, 10000) == 3000) {
+                    seenAt.set(System.nanoTime());
+                    return;
+                }
+            }
+        });
+        reader.start();
+        started.await();
+        // when
+        long writtenAt = System.nanoTime();
+        write(file, "discount.rate-percent=30\n", 2);
+        reader.join(2000);
+        running.set(false);
+        // then
+        long delayMillis = (seenAt.get() - writtenAt) / 1_000_000;
+        System.out.println("visible after " + delayMillis + "ms (pollInterval = 20ms)");
+        assertThat(seenAt.get()).isGreaterThan(0L);
+        assertThat(delayMillis).isLessThan(1000L);
+    }
+
+    // 파일 시스템의 수정 시각 단위가 거칠어도 바뀐 것이 보이도록 version초씩 앞당겨 둔다.
+    private static void write(Path file, String content, int version) throws Exception {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000_000_000L + version * 1000L));
+    }
+}
@@ -0,0 +1,112 @@
+package hello.core.discount;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionSchedulerTest {
+    private static final long BASE = 1_700_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(BASE);
+    private final Member vip = new Member(1L, "memberVIP", Grade.VIP);
+    private final Member basic = new Member(2L, "memberBasic", Grade.BASIC);
+
+    @Test
+    @DisplayName("시작 시각에 켜지고 종료 시각에 꺼진다.")
+    void activateAndExpire() {
+        // given
+        PromotionScheduler scheduler = new PromotionScheduler(Duration.ofMillis(10), now::get);
+        DiscountPolicy policy = new PromotionDiscountPolicy(new RateDiscountPolicy(), scheduler);
+        scheduler.schedule(new Promotion(1L, "flash sale", RuleDiscountPolicy.parse("* * 0 50%"), BASE + 1000, BASE + 2000));
+        // when, then
+        scheduler.advanceTo(BASE + 999);
+        assertThat(policy.discount(basic, 10000)).isEqualTo(0);
+        assertThat(policy.discount(vip, 10000)).isEqualTo(1000);
+
+        scheduler.advanceTo(BASE + 1000);
+        assertThat(policy.discount(basic, 10000)).isEqualTo(5000);
+        assertThat(policy.discount(vip, 10000)).isEqualTo(5000);
+
+        scheduler.advanceTo(BASE + 1999);
+        assertThat(scheduler.getActivePromotions()).hasSize(1);
+        scheduler.advanceTo(BASE + 2000);
+        assertThat(policy.discount(basic, 10000)).isEqualTo(0);
+        assertThat(scheduler.getScheduledCount()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("이미 시작한 프로모션은 바로 켜고, 취소하면 바로 끈다.")
+    void scheduleLateAndCancel() {
+        // given
+        PromotionScheduler scheduler = new PromotionScheduler(Duration.ofMillis(10), now::get);
+        DiscountPolicy policy = new PromotionDiscountPolicy(new FixDiscountPolicy(), scheduler);
+        // when
+        scheduler.schedule(new Promotion(1L, "running", RuleDiscountPolicy.parse("BASIC * 0 2000"), BASE - 1000, BASE + 60_000));
+        scheduler.schedule(new Promotion(2L, "finished", RuleDiscountPolicy.parse("* * 0 90%"), BASE - 2000, BASE - 1000));
+        // then
+        assertThat(policy.discount(basic, 10000)).isEqualTo(2000);
+        assertThat(scheduler.getScheduledCount()).isEqualTo(1);
+        assertThat(scheduler.cancel(1L)).isTrue();
+        assertThat(policy.discount(basic, 10000)).isEqualTo(0);
+        assertThat(scheduler.cancel(1L)).isFalse();
+        assertThatThrownBy(() -> new Promotion(3L, "invalid", new FixDiscountPolicy(), BASE, BASE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 몇 분에서 몇 년 뒤까지 흩어진 프로모션 수천 개를 등록하고 임의의 간격으로 시간을 흘려보낸다.
+     * 매번 켜진 프로모션이 시각으로 직접 계산한 것과 같아야 한다.
+     */
+    @Test
+    @DisplayName("여러 단에 걸친 프로모션도 정확한 tick에 켜지고 꺼진다.")
+    void manyPromotions() {
+        // given
+        PromotionScheduler scheduler = new PromotionScheduler(Duration.ofMillis(1), now::get);
+        Random random = new Random(42);
+        Promotion[] promotions = new Promotion[5000];
+        for (int i = 0; i < promotions.length; i++) {
+            long start = BASE + (long) (Math.pow(random.nextDouble(), 4) * 400L * 24 * 3600 * 1000);
+            long end = start + 1 + random.nextInt(7 * 24 * 3600 * 1000);
+            promotions[i] = new Promotion(i, "promotion" + i, new FixDiscountPolicy(), start, end);
+            scheduler.schedule(promotions[i]);
+        }
+        // 켜지고 꺼지는 시각 앞뒤를 모두 확인한다.
+        TreeSet<Long> checkpoints = new TreeSet<>();
+        for (Promotion promotion : promotions) {
+            checkpoints.add(promotion.getStartAt() - 1);
+            checkpoints.add(promotion.getStartAt());
+            checkpoints.add(promotion.getEndAt() - 1);
+            checkpoints.add(promotion.getEndAt());
+        }
+
+        // when, then
+        long begin = System.nanoTime();
+        int checked = 0;
+        for (long at : checkpoints) {
+            if (at <= BASE) {
+                continue;
+            }
+            scheduler.advanceTo(at);
+            if (checked++ % 97 == 0) {
+                int expected = 0;
+                for (Promotion promotion : promotions) {
+                    if (promotion.getStartAt() <= at && at < promotion.getEndAt()) {
+                        expected++;
+                    }
+                }
+                assertThat(scheduler.activePolicies().length).isEqualTo(expected);
+            }
+        }
+        System.out.println("5000 promotions over 400 days, " + checkpoints.size() + " advances = "
+                + (System.nanoTime() - begin) / 1_000_000 + "ms");
+        assertThat(scheduler.getScheduledCount()).isEqualTo(0);
+    }
+}
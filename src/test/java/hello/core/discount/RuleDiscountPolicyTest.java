@@ -0,0 +1,104 @@
+package hello.core.discount;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RuleDiscountPolicyTest {
+    private static final String RULES = String.join("\n",
+            "# 등급  상품    최소가격  할인",
+            "VIP     itemA   50000     5000   # itemA는 5만원 이상이면 5000원",
+            "VIP     *       0         10%",
+            "*       *       100000    1000",
+            "BASIC   itemB   0         3%");
+
+    private final Member vip = new Member(1L, "memberVIP", Grade.VIP);
+    private final Member basic = new Member(2L, "memberBasic", Grade.BASIC);
+
+    @Test
+    @DisplayName("위에서부터 처음 맞는 규칙 하나만 적용한다.")
+    void firstMatchingRule() {
+        // given
+        RuleDiscountPolicy policy = RuleDiscountPolicy.parse(RULES);
+        // then
+        assertThat(policy.getRuleCount()).isEqualTo(4);
+        assertThat(policy.discount(vip, "itemA", 60000)).isEqualTo(5000);
+        assertThat(policy.discount(vip, "itemA", 40000)).isEqualTo(4000);
+        assertThat(policy.discount(vip, "itemC", 200000)).isEqualTo(20000);
+        assertThat(policy.discount(basic, "itemC", 200000)).isEqualTo(1000);
+        assertThat(policy.discount(basic, "itemC", 99999)).isEqualTo(0);
+        // BASIC의 itemB 규칙보다 위에 있는 * 규칙이 먼저 맞는다.
+        assertThat(policy.discount(basic, "itemB", 100000)).isEqualTo(1000);
+        assertThat(policy.discount(basic, "itemB", 10000)).isEqualTo(300);
+        // 상품을 모르면 상품이 *인 규칙만 본다.
+        assertThat(policy.discount(basic, 10000)).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("할인은 상품 가격을 넘지 않는다.")
+    void discountNotOverPrice() {
+        RuleDiscountPolicy policy = RuleDiscountPolicy.parse("VIP * 0 1000");
+
+        assertThat(policy.discount(vip, 500)).isEqualTo(500);
+        assertThat(policy.discount(vip, 5000)).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("형식이 틀린 줄은 줄 번호와 함께 알려준다.")
+    void invalidRule() {
+        assertThatThrownBy(() -> RuleDiscountPolicy.parse("VIP * 0 10%\nGOLD * 0 10%"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("2번째 줄");
+        assertThatThrownBy(() -> RuleDiscountPolicy.parse("VIP * 0 120%"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RuleDiscountPolicy.parse("VIP * abc 10%"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("1번째 줄");
+    }
+
+    /**
+     * 기존 정책과 같은 규칙으로 컴파일한 정책이 같은 할인 금액을 내고, 호출당 시간이 크게 차이 나지 않는지 본다.
+     */
+    @Test
+    @DisplayName("기존 정책과 같은 결과를 낸다.")
+    void benchmark() {
+        // given
+        RuleDiscountPolicy rate = RuleDiscountPolicy.parse("VIP * 0 10%");
+        RuleDiscountPolicy fix = RuleDiscountPolicy.parse("VIP * 0 1000");
+        RuleDiscountPolicy many = RuleDiscountPolicy.parse(RULES + "\nVIP itemD 0 7%\nVIP itemE 30000 2000\n* * 500000 3%");
+        Member[] members = {vip, basic, vip, vip, basic, vip, basic, vip};
+        int[] prices = new int[1024];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 1000 + i * 97;
+        }
+        // then
+        for (Member member : members) {
+            for (int price : prices) {
+                assertThat(rate.discount(member, price)).isEqualTo(new RateDiscountPolicy().discount(member, price));
+                assertThat(fix.discount(member, price)).isEqualTo(new FixDiscountPolicy().discount(member, price));
+            }
+        }
+
+        System.out.println("RateDiscountPolicy = " + nanosPerCall(new RateDiscountPolicy(), members, prices) + "ns"
+                + ", rule(VIP * 0 10%) = " + nanosPerCall(rate, members, prices) + "ns"
+                + ", rule(" + many.getRuleCount() + " rules, itemC) = " + nanosPerCall(many, members, prices) + "ns");
+    }
+
+    private static double nanosPerCall(DiscountPolicy policy, Member[] members, int[] prices) {
+        int calls = 4_000_000;
+        long best = Long.MAX_VALUE;
+        long sum = 0;
+        for (int round = 0; round < 5; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sum += policy.discount(members[i & 7], "itemC", prices[i & 1023]);
+            }
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        assertThat(sum).isGreaterThan(-1L);
+        return Math.round(best * 100.0 / calls) / 100.0;
+    }
+}
@@ -0,0 +1,69 @@
+package hello.core.item;
+
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+import hello.core.member.MemoryMemberRepository;
+import hello.core.order.Order;
+import hello.core.order.OrderServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemCatalogTest {
+    private final ItemCatalog itemCatalog = new ItemCatalog();
+
+    @Test
+    @DisplayName("등록한 순서대로 0부터 id를 주고, 같은 이름은 같은 id를 돌려준다.")
+    void register() {
+        // when
+        int itemA = itemCatalog.register("itemA", 10000);
+        int itemB = itemCatalog.register("itemB", 20000);
+        int again = itemCatalog.register(new String("itemA"), 15000);
+        // then
+        assertThat(itemA).isEqualTo(0);
+        assertThat(itemB).isEqualTo(1);
+        assertThat(again).isEqualTo(itemA);
+        assertThat(itemCatalog.getPrice(itemA)).isEqualTo(15000);
+        assertThat(itemCatalog.findId("itemB")).isEqualTo(itemB);
+        assertThat(itemCatalog.findId("itemC")).isEqualTo(ItemCatalog.UNKNOWN_ID);
+        assertThat(itemCatalog.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("배열이 커져도 먼저 등록한 상품을 그대로 찾는다.")
+    void grow() {
+        for (int i = 0; i < 1000; i++) {
+            assertThat(itemCatalog.register("item" + i, i)).isEqualTo(i);
+        }
+
+        assertThat(itemCatalog.getName(999)).isEqualTo("item999");
+        assertThat(itemCatalog.getPrice(500)).isEqualTo(500);
+        assertThatThrownBy(() -> itemCatalog.getPrice(1000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("상품 id로 주문하면 상품 목록의 이름과 가격을 쓴다.")
+    void createWithItemId() {
+        // given
+        MemberRepository memberRepository = new MemoryMemberRepository();
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setItemCatalog(itemCatalog);
+        int itemId = itemCatalog.register("itemA", 10000);
+        // when
+        Order first = orderService.create(1L, itemId);
+        Order second = orderService.create(1L, itemId);
+        // then
+        assertThat(first.getItemId()).isEqualTo(itemId);
+        assertThat(first.getItemPrice()).isEqualTo(10000);
+        assertThat(first.getDiscountPrice()).isEqualTo(1000);
+        assertThat(second.getItemName()).isSameAs(first.getItemName());
+        assertThatThrownBy(() -> orderService.create(1L, 99))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("itemId = 99");
+    }
+}
@@ -0,0 +1,208 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CachingMemberRepositoryTest {
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void readThrough() {
+        // given
+        SlowMemberRepository slow = new SlowMemberRepository(0);
+        CachingMemberRepository repository = new CachingMemberRepository(slow, 10, Duration.ofMinutes(1), now::get);
+        repository.save(new Member(1L, "member1", Grade.VIP));
+        // when
+        repository.findById(1L);
+        repository.findById(1L);
+        repository.findById(1L);
+        // then
+        assertThat(slow.findCount).isEqualTo(1);
+        assertThat(repository.getHitCount()).isEqualTo(2);
+        assertThat(repository.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("save하면 캐시에서 지워서 다음 조회는 새 값을 읽는다.")
+    void saveInvalidates() {
+        CachingMemberRepository repository = new CachingMemberRepository(new SlowMemberRepository(0), 10, Duration.ofMinutes(1), now::get);
+        repository.save(new Member(1L, "before", Grade.BASIC));
+        repository.findById(1L);
+
+        repository.save(new Member(1L, "after", Grade.VIP));
+
+        assertThat(repository.findById(1L).getName()).isEqualTo("after");
+    }
+
+    @Test
+    @DisplayName("ttl이 지나면 다시 읽는다.")
+    void expire() {
+        SlowMemberRepository slow = new SlowMemberRepository(0);
+        CachingMemberRepository repository = new CachingMemberRepository(slow, 10, Duration.ofSeconds(1), now::get);
+        repository.save(new Member(1L, "member1", Grade.VIP));
+        repository.findById(1L);
+
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        repository.findById(1L);
+
+        assertThat(slow.findCount).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("한 번 조회된 회원은 자주 조회되는 회원을 밀어내지 못한다.")
+    void frequencyAwareAdmission() {
+        SlowMemberRepository slow = new SlowMemberRepository(0);
+        CachingMemberRepository repository = new CachingMemberRepository(slow, 2, Duration.ofMinutes(1), now::get);
+        for (long id = 1; id <= 100; id++) {
+            slow.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+        for (int i = 0; i < 5; i++) {
+            repository.findById(1L);
+            repository.findById(2L);
+        }
+
+        // 한 번씩만 조회되는 회원들
+        for (long id = 3; id <= 100; id++) {
+            repository.findById(id);
+        }
+        long before = slow.findCount;
+        repository.findById(1L);
+        repository.findById(2L);
+
+        assertThat(slow.findCount).isEqualTo(before);
+        assertThat(repository.size()).isEqualTo(2);
+    }
+
+    /**
+     * 여러 쓰레드가 같은 인기 회원들을 동시에 조회한다. 캐시에 있는 회원은 락 없이 읽으므로 서로 기다리지 않는다.
+     */
+    @Test
+    @DisplayName("여러 쓰레드가 동시에 조회해도 맞는 회원을 돌려주고 캐시 크기를 넘지 않는다.")
+    void contendedReads() throws Exception {
+        // given
+        SlowMemberRepository slow = new SlowMemberRepository(0);
+        for (long id = 0; id < 100; id++) {
+            slow.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+        CachingMemberRepository repository = new CachingMemberRepository(slow, 50, Duration.ofMinutes(1));
+        int threads = 4;
+        int perThread = 200_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong wrong = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        // when
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    // 0~19번 회원에 조회가 몰리고 가끔 나머지 회원을 조회한다.
+                    long id = i % 10 == 0 ? random.nextInt(100) : random.nextInt(20);
+                    if (repository.findById(id).getId() != id) {
+                        wrong.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        // then
+        System.out.println("contended reads = " + (long) threads * perThread * 1_000_000_000L / elapsed + " reads/s"
+                + ", hit rate = " + repository.getHitRate());
+        assertThat(wrong.get()).isEqualTo(0L);
+        assertThat(repository.getHitCount() + repository.getMissCount()).isEqualTo((long) threads * perThread);
+        assertThat(repository.getHitRate()).isGreaterThan(0.9);
+        assertThat(repository.size()).isLessThan(51);
+    }
+
+    /**
+     * 인기 회원에 조회가 몰리는 분포에서 느린 리포지토리를 직접 부를 때와 p99 지연을 비교한다.
+     */
+    @Test
+    @DisplayName("느린 리포지토리 앞에서의 꼬리 지연 비교")
+    void tailLatency() {
+        SlowMemberRepository slow = new SlowMemberRepository(200_000);
+        for (long id = 0; id < 1_000; id++) {
+            slow.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+        CachingMemberRepository cached = new CachingMemberRepository(slow, 100, Duration.ofMinutes(1));
+
+        long[] direct = measure(slow, 2_000);
+        measure(cached, 2_000); // 캐시 채우기
+        long[] withCache = measure(cached, 2_000);
+
+        System.out.println("p99 direct = " + direct[direct.length * 99 / 100] / 1_000 + "us"
+                + ", p99 cached = " + withCache[withCache.length * 99 / 100] / 1_000 + "us"
+                + ", hit rate = " + cached.getHitRate()
+                + ", evictions = " + cached.getEvictionCount());
+        assertThat(cached.getHitRate()).isGreaterThan(0.9);
+    }
+
+    // 지수 분포로 낮은 id에 조회가 몰리게 한다. 정렬된 지연 시간(ns)을 반환한다.
+    private long[] measure(MemberRepository repository, int requests) {
+        Random random = new Random(1);
+        long[] latencies = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            long id = Math.min(999, (long) (-Math.log(1 - random.nextDouble()) * 10));
+            long begin = System.nanoTime();
+            repository.findById(id);
+            latencies[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    static class SlowMemberRepository implements MemberRepository {
+        private final Map<Long, Member> store = new ConcurrentHashMap<>();
+        private final long delayNanos;
+        private long findCount;
+
+        SlowMemberRepository(long delayNanos) {
+            this.delayNanos = delayNanos;
+        }
+
+        @Override
+        public void save(Member member) {
+            store.put(member.getId(), member);
+        }
+
+        @Override
+        public Member findById(Long memberId) {
+            findCount++;
+            long end = System.nanoTime() + delayNanos;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+            return store.get(memberId);
+        }
+
+        @Override
+        public void forEach(Consumer<? super Member> action) {
+            store.values().forEach(action);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ColumnarMemberRepositoryTest {
+    private static final int COUNT = 200_000;
+
+    private ColumnarMemberRepository repository;
+
+    @BeforeEach
+    void beforeEach() {
+        repository = new ColumnarMemberRepository(16);
+        List<Member> members = new ArrayList<>();
+        for (long id = 0; id < COUNT; id++) {
+            members.add(new Member(id, (id % 2 == 0 ? "kim" : "lee") + id, id % 10 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        repository.saveAll(members);
+    }
+
+    @Test
+    void findById() {
+        Member member = repository.findById(10L);
+        assertThat(member.getName()).isEqualTo("kim10");
+        assertThat(member.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(repository.findById((long) COUNT)).isNull();
+    }
+
+    @Test
+    @DisplayName("같은 id로 다시 저장하면 같은 행을 덮어쓴다.")
+    void overwrite() {
+        repository.save(new Member(10L, null, Grade.BASIC));
+
+        assertThat(repository.size()).isEqualTo(COUNT);
+        assertThat(repository.findById(10L).getName()).isNull();
+        assertThat(repository.countByGrade(Grade.VIP)).isEqualTo(COUNT / 10 - 1);
+    }
+
+    @Test
+    void gradeDistribution() {
+        Map<Grade, Long> distribution = repository.gradeDistribution();
+
+        assertThat(distribution.get(Grade.VIP)).isEqualTo(COUNT / 10);
+        assertThat(distribution.get(Grade.BASIC)).isEqualTo(COUNT - COUNT / 10);
+        assertThat(repository.countByGrade(Grade.VIP)).isEqualTo(COUNT / 10);
+    }
+
+    @Test
+    void filter() {
+        ColumnarMemberRepository.RowFilter filter = (id, grade) -> grade == Grade.VIP && id < 100;
+
+        assertThat(repository.count(filter)).isEqualTo(10);
+        assertThat(repository.findIds(filter)).containsExactly(0L, 10L, 20L, 30L, 40L, 50L, 60L, 70L, 80L, 90L);
+    }
+
+    @Test
+    void countByNamePrefix() {
+        assertThat(repository.countByNamePrefix("kim")).isEqualTo(COUNT / 2);
+        assertThat(repository.countByNamePrefix("lee1999")).isEqualTo(1 + 5 + 50);
+        assertThat(repository.countByNamePrefix("park")).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Member 객체를 하나씩 훑는 방식과 등급 집계 시간 비교")
+    void scanVersusObjects() {
+        List<Member> members = new ArrayList<>();
+        for (long id = 0; id < COUNT; id++) {
+            members.add(repository.findById(id));
+        }
+
+        long begin = System.nanoTime();
+        long objectCount = 0;
+        for (int i = 0; i < 20; i++) {
+            objectCount = members.stream().filter(member -> member.getGrade() == Grade.VIP).count();
+        }
+        long objectScan = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        long columnarCount = 0;
+        for (int i = 0; i < 20; i++) {
+            columnarCount = repository.countByGrade(Grade.VIP);
+        }
+        long columnarScan = System.nanoTime() - begin;
+
+        System.out.println("objects = " + objectScan / 20_000 + "us, columnar = " + columnarScan / 20_000 + "us");
+        assertThat(columnarCount).isEqualTo(objectCount);
+    }
+}
@@ -0,0 +1,160 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FileMemberRepositoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("다시 열면 로그에서 회원을 복구한다.")
+    void recoverFromLog() {
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            repository.save(new Member(1L, "member1", Grade.VIP));
+            repository.save(new Member(2L, null, Grade.BASIC));
+            repository.save(new Member(1L, "renamed", Grade.VIP));
+        }
+
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            assertThat(repository.size()).isEqualTo(2);
+            assertThat(repository.findById(1L).getName()).isEqualTo("renamed");
+            assertThat(repository.findById(2L).getName()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("스냅샷과 그 뒤의 로그를 합쳐서 복구한다.")
+    void recoverFromSnapshotAndLogTail() throws Exception {
+        try (FileMemberRepository repository = new FileMemberRepository(directory, 10)) {
+            for (long id = 0; id < 25; id++) {
+                repository.save(new Member(id, "member" + id, Grade.BASIC));
+            }
+        }
+        assertThat(Files.exists(directory.resolve(FileMemberRepository.SNAPSHOT_FILE))).isTrue();
+
+        try (FileMemberRepository repository = new FileMemberRepository(directory, 10)) {
+            assertThat(repository.size()).isEqualTo(25);
+            assertThat(repository.findById(24L).getName()).isEqualTo("member24");
+        }
+    }
+
+    @Test
+    @DisplayName("쓰다 만 마지막 기록은 버리고 그 앞까지 복구한다.")
+    void ignoreTornTail() throws Exception {
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            repository.save(new Member(1L, "member1", Grade.VIP));
+        }
+        Path log = directory.resolve(FileMemberRepository.LOG_FILE);
+        long validSize = Files.size(log);
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            assertThat(repository.findById(1L).getName()).isEqualTo("member1");
+            repository.save(new Member(2L, "member2", Grade.BASIC));
+        }
+        assertThat(Files.size(log)).isGreaterThan(validSize);
+
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            assertThat(repository.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("스냅샷을 다 쓰기 전에 멈춰서 남은 로그도 지금 로그보다 먼저 적용한다.")
+    void recoverFromRotatedLog() throws Exception {
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            repository.save(new Member(1L, "member1", Grade.VIP));
+            repository.save(new Member(2L, "member2", Grade.BASIC));
+        }
+        // 로그를 돌려 놓은 뒤 스냅샷을 쓰기 전에 멈춘 상태
+        Files.move(directory.resolve(FileMemberRepository.LOG_FILE), directory.resolve(FileMemberRepository.ROTATED_LOG_FILE));
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            repository.save(new Member(1L, "renamed", Grade.VIP));
+        }
+
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            assertThat(repository.size()).isEqualTo(2);
+            assertThat(repository.findById(1L).getName()).isEqualTo("renamed");
+            repository.snapshot();
+        }
+        assertThat(Files.exists(directory.resolve(FileMemberRepository.ROTATED_LOG_FILE))).isFalse();
+
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            assertThat(repository.findById(1L).getName()).isEqualTo("renamed");
+            assertThat(repository.findById(2L).getName()).isEqualTo("member2");
+        }
+    }
+
+    @Test
+    @DisplayName("닫은 뒤에 저장하면 IllegalStateException을 던진다.")
+    void saveAfterClose() {
+        FileMemberRepository repository = new FileMemberRepository(directory);
+        repository.close();
+
+        assertThatThrownBy(() -> repository.save(new Member(1L, "member1", Grade.VIP)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> repository.saveAll(List.of(new Member(1L, "member1", Grade.VIP))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("여러 쓰레드가 동시에 저장해도 모두 복구된다.")
+    void concurrentSave() throws Exception {
+        int threadCount = 8;
+        int perThread = 500;
+        try (FileMemberRepository repository = new FileMemberRepository(directory, 1_000)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                long base = (long) t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (long id = base; id < base + perThread; id++) {
+                        repository.save(new Member(id, "member" + id, Grade.BASIC));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            assertThat(repository.size()).isEqualTo(threadCount * perThread);
+        }
+    }
+
+    @Test
+    @DisplayName("회원이 많을 때 재시작 시간")
+    void restartTime() {
+        int count = 1_000_000;
+        List<Member> members = new ArrayList<>(count);
+        for (long id = 0; id < count; id++) {
+            members.add(new Member(id, "member" + id, id % 10 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            repository.saveAll(members.subList(0, count - 1_000));
+            repository.snapshot();
+            repository.saveAll(members.subList(count - 1_000, count));
+        }
+
+        long begin = System.nanoTime();
+        try (FileMemberRepository repository = new FileMemberRepository(directory)) {
+            System.out.println("members = " + count + ", restart = " + (System.nanoTime() - begin) / 1_000_000 + "ms");
+            assertThat(repository.size()).isEqualTo(count);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IndexedMemberRepositoryTest {
+    private IndexedMemberRepository repository;
+
+    @BeforeEach
+    void beforeEach() {
+        this.repository = new IndexedMemberRepository(new OffHeapMemberRepository());
+    }
+
+    @Test
+    void findByGrade() {
+        // given
+        Member kim = new Member(1L, "kim", Grade.VIP);
+        Member lee = new Member(2L, "lee", Grade.BASIC);
+        Member park = new Member(3L, "park", Grade.VIP);
+        repository.saveAll(List.of(kim, lee, park));
+        // when
+        List<Member> vips = repository.findByGrade(Grade.VIP);
+        // then
+        assertThat(vips).containsExactly(kim, park);
+        assertThat(repository.countByGrade(Grade.VIP)).isEqualTo(2);
+        assertThat(repository.countByGrade(Grade.BASIC)).isEqualTo(1);
+    }
+
+    @Test
+    void findByNamePrefix() {
+        // given
+        Member kim = new Member(1L, "kim", Grade.BASIC);
+        Member kimchi = new Member(2L, "kimchi", Grade.BASIC);
+        Member lee = new Member(3L, "lee", Grade.BASIC);
+        repository.saveAll(List.of(kimchi, lee, kim));
+        // when
+        List<Member> found = repository.findByNamePrefix("kim");
+        // then
+        assertThat(found).containsExactly(kim, kimchi);
+        assertThat(repository.findByNamePrefix("x")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("setGrade, setName으로 바꾸면 인덱스와 위임 리포지토리에 반영된다.")
+    void setterUpdatesIndexes() {
+        // given
+        Member member = new Member(1L, "kim", Grade.BASIC);
+        repository.save(member);
+        // when
+        member.setGrade(Grade.VIP);
+        member.setName("choi");
+        // then
+        assertThat(repository.findByGrade(Grade.VIP)).containsExactly(member);
+        assertThat(repository.countByGrade(Grade.BASIC)).isEqualTo(0);
+        assertThat(repository.findByNamePrefix("kim")).isEmpty();
+        assertThat(repository.findByNamePrefix("ch")).containsExactly(member);
+        assertThat(repository.findById(1L).getGrade()).isEqualTo(Grade.VIP);
+    }
+
+    @Test
+    @DisplayName("같은 id로 다시 저장하면 이전 객체의 변경은 인덱스에 영향을 주지 않는다.")
+    void resaveReplacesIndexedMember() {
+        // given
+        Member before = new Member(1L, "kim", Grade.BASIC);
+        Member after = new Member(1L, "kim", Grade.VIP);
+        repository.save(before);
+        repository.save(after);
+        // when
+        before.setGrade(Grade.BASIC);
+        // then
+        assertThat(repository.countByGrade(Grade.VIP)).isEqualTo(1);
+        assertThat(repository.countByGrade(Grade.BASIC)).isEqualTo(0);
+        assertThat(repository.findById(1L).getGrade()).isEqualTo(Grade.VIP);
+    }
+
+    @Test
+    @DisplayName("비트맵이 여러 word로 늘어나도 모두 찾는다.")
+    void manyMembers() {
+        for (long id = 0; id < 1_000; id++) {
+            repository.save(new Member(id, "member" + id, id % 3 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+
+        assertThat(repository.countByGrade(Grade.VIP)).isEqualTo(334);
+        assertThat(repository.findByGrade(Grade.VIP)).hasSize(334);
+        assertThat(repository.findByGrade(Grade.BASIC)).hasSize(666);
+        assertThat(repository.findByNamePrefix("member99")).hasSize(11);
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.assertj.core.api.Assertions.*;
 
@@ -25,4 +27,16 @@ class MemberServiceImplTest {
         // then
         assertThat(member).isEqualTo(searchMember);
     }
+
+    @Test
+    void joinAll() {
+        // given
+        Member member1 = new Member(11L, "member1", Grade.VIP);
+        Member member2 = new Member(12L, "member2", Grade.BASIC);
+        // when
+        service.joinAll(List.of(member1, member2));
+        List<Member> members = service.findMembers(new long[]{12L, 13L, 11L});
+        // then
+        assertThat(members).containsExactly(member2, null, member1);
+    }
 }
\ No newline at end of file
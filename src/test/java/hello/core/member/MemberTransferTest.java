@@ -0,0 +1,77 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemberTransferTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("내보낸 파일을 다른 리포지토리로 읽어 들인다.")
+    void exportAndImport() {
+        // given
+        ColumnarMemberRepository source = new ColumnarMemberRepository();
+        source.save(new Member(1L, "회원1", Grade.VIP));
+        source.save(new Member(2L, null, null));
+        source.save(new Member(3L, "x".repeat(5_000), Grade.BASIC));
+        Path file = directory.resolve("members.bin");
+        // when
+        long exported = MemberTransfer.exportTo(source, file, 1_024);
+        ShardedMemberRepository target = new ShardedMemberRepository(4);
+        long imported = MemberTransfer.importFrom(file, target);
+        // then
+        assertThat(exported).isEqualTo(3);
+        assertThat(imported).isEqualTo(3);
+        assertThat(target.findById(1L).getName()).isEqualTo("회원1");
+        assertThat(target.findById(2L).getGrade()).isNull();
+        assertThat(target.findById(3L).getName()).hasSize(5_000);
+    }
+
+    @Test
+    void invalidFile() throws Exception {
+        Path file = directory.resolve("invalid.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IllegalStateException.class,
+                () -> MemberTransfer.importFrom(file, new ShardedMemberRepository(1)));
+    }
+
+    @Test
+    @DisplayName("전체 회원 내보내기/읽어 들이기 처리량")
+    void throughput() throws Exception {
+        int count = 1_000_000;
+        ColumnarMemberRepository source = new ColumnarMemberRepository(count);
+        List<Member> members = new ArrayList<>(count);
+        for (long id = 0; id < count; id++) {
+            members.add(new Member(id, "member" + id, id % 10 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        source.saveAll(members);
+        Path file = directory.resolve("members.bin");
+
+        long begin = System.nanoTime();
+        MemberTransfer.exportTo(source, file);
+        long exportNanos = System.nanoTime() - begin;
+
+        ShardedMemberRepository target = new ShardedMemberRepository(Runtime.getRuntime().availableProcessors());
+        begin = System.nanoTime();
+        long imported = MemberTransfer.importFrom(file, target);
+        long importNanos = System.nanoTime() - begin;
+
+        long megabytes = Files.size(file) >> 20;
+        System.out.println("size = " + megabytes + "MB"
+                + ", export = " + megabytes * 1_000_000_000L / Math.max(exportNanos, 1) + "MB/s"
+                + ", import = " + megabytes * 1_000_000_000L / Math.max(importNanos, 1) + "MB/s");
+        assertThat(imported).isEqualTo(count);
+        assertThat(target.findById(999_999L).getName()).isEqualTo("member999999");
+    }
+}
@@ -0,0 +1,121 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MemoryMemberRepositoryTest {
+    private final MemoryMemberRepository repository = new MemoryMemberRepository();
+
+    @AfterEach
+    void afterEach() {
+        repository.clearStore();
+    }
+
+    @Test
+    @DisplayName("여러 쓰레드가 동시에 저장해도 유실되는 회원이 없어야 한다.")
+    void concurrentSave() throws Exception {
+        int threadCount = 32;
+        int perThread = 10_000;
+
+        runConcurrently(repository, threadCount, perThread);
+
+        for (long id = 0; id < (long) threadCount * perThread; id++) {
+            Member member = repository.findById(id);
+            assertThat(member).isNotNull();
+            assertThat(member.getId()).isEqualTo(id);
+        }
+    }
+
+    @Test
+    @DisplayName("null id로 조회하면 예외 없이 null을 돌려준다.")
+    void findByNullId() {
+        assertThat(repository.findById(null)).isNull();
+    }
+
+    /**
+     * 기존 HashMap은 동시에 쓰면 망가지기 때문에 비교 대상은 synchronizedMap으로 감싼 HashMap이다.
+     * 시간 측정은 참고용으로 출력만 한다.
+     */
+    @Test
+    @DisplayName("synchronizedMap과 처리량 비교")
+    void throughput() throws Exception {
+        int totalOps = 320_000;
+        for (int threadCount : new int[]{1, 8, 32}) {
+            repository.clearStore();
+            long concurrent = runConcurrently(repository, threadCount, totalOps / threadCount);
+            long synchronizedMap = runConcurrently(new SynchronizedMapMemberRepository(), threadCount, totalOps / threadCount);
+
+            System.out.println("threads = " + threadCount
+                    + ", ConcurrentHashMap = " + opsPerSecond(totalOps, concurrent) + " ops/s"
+                    + ", synchronizedMap = " + opsPerSecond(totalOps, synchronizedMap) + " ops/s");
+        }
+    }
+
+    // 쓰레드마다 겹치지 않는 id를 저장하고 곧바로 조회한다. 걸린 시간(ns)을 반환한다.
+    private long runConcurrently(MemberRepository memberRepository, int threadCount, int perThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            long base = (long) t * perThread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long id = base; id < base + perThread; id++) {
+                    memberRepository.save(new Member(id, "member" + id, Grade.BASIC));
+                    memberRepository.findById(id);
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private long opsPerSecond(int ops, long elapsedNanos) {
+        return ops * 1_000_000_000L / Math.max(elapsedNanos, 1);
+    }
+
+    static class SynchronizedMapMemberRepository implements MemberRepository {
+        private final Map<Long, Member> store = Collections.synchronizedMap(new HashMap<>());
+
+        @Override
+        public void save(Member member) {
+            store.put(member.getId(), member);
+        }
+
+        @Override
+        public Member findById(Long memberId) {
+            return store.get(memberId);
+        }
+
+        // synchronizedMap은 순회할 때 직접 맵을 잠가야 한다.
+        @Override
+        public void forEach(Consumer<? super Member> action) {
+            synchronized (store) {
+                store.values().forEach(action);
+            }
+        }
+    }
+}
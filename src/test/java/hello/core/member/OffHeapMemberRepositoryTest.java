@@ -0,0 +1,172 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OffHeapMemberRepositoryTest {
+
+    @Test
+    void saveAndFind() {
+        OffHeapMemberRepository repository = new OffHeapMemberRepository();
+        repository.save(new Member(1L, "회원1", Grade.VIP));
+        repository.save(new Member(2L, null, Grade.BASIC));
+
+        Member member = repository.findById(1L);
+        assertThat(member.getId()).isEqualTo(1L);
+        assertThat(member.getName()).isEqualTo("회원1");
+        assertThat(member.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(repository.findById(2L).getName()).isNull();
+        assertThat(repository.findById(3L)).isNull();
+        assertThat(repository.findById(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("같은 id로 다시 저장하면 덮어쓴다.")
+    void overwrite() {
+        OffHeapMemberRepository repository = new OffHeapMemberRepository();
+        repository.save(new Member(1L, "before", Grade.BASIC));
+        repository.save(new Member(1L, "after", Grade.VIP));
+
+        Member member = repository.findById(1L);
+        assertThat(member.getName()).isEqualTo("after");
+        assertThat(member.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(repository.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("테이블이 늘어나도 기존 회원을 찾을 수 있어야 한다.")
+    void grow() {
+        OffHeapMemberRepository repository = new OffHeapMemberRepository(16);
+        for (long id = -5_000; id < 50_000; id++) {
+            repository.save(new Member(id, "member" + id, id % 2 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+
+        assertThat(repository.size()).isEqualTo(55_000);
+        for (long id = -5_000; id < 50_000; id++) {
+            Member member = repository.findById(id);
+            assertThat(member.getName()).isEqualTo("member" + id);
+        }
+    }
+
+    @Test
+    @DisplayName("여러 회원을 한 번에 저장하고 조회한다.")
+    void saveAll() {
+        OffHeapMemberRepository repository = new OffHeapMemberRepository(16);
+        repository.saveAll(members(0, 10_000));
+
+        List<Member> found = repository.findAllById(new long[]{9_999L, 10_000L, 0L});
+        assertThat(found.get(0).getName()).isEqualTo("member9999");
+        assertThat(found.get(1)).isNull();
+        assertThat(found.get(2).getName()).isEqualTo("member0");
+        assertThat(repository.size()).isEqualTo(10_000);
+    }
+
+    @Test
+    @DisplayName("한 건씩 저장/조회하는 반복문과 일괄 처리 비교")
+    void bulkVersusLoop() {
+        int count = 500_000;
+        List<Member> members = members(0, count);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+        }
+
+        OffHeapMemberRepository loop = new OffHeapMemberRepository(16);
+        long begin = System.nanoTime();
+        for (Member member : members) {
+            loop.save(member);
+        }
+        long loopSave = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        for (long id : ids) {
+            loop.findById(id);
+        }
+        long loopFind = System.nanoTime() - begin;
+
+        OffHeapMemberRepository bulk = new OffHeapMemberRepository(16);
+        begin = System.nanoTime();
+        bulk.saveAll(members);
+        long bulkSave = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        bulk.findAllById(ids);
+        long bulkFind = System.nanoTime() - begin;
+
+        System.out.println("save : loop = " + loopSave / 1_000_000 + "ms, saveAll = " + bulkSave / 1_000_000 + "ms");
+        System.out.println("find : loop = " + loopFind / 1_000_000 + "ms, findAllById = " + bulkFind / 1_000_000 + "ms");
+        assertThat(bulk.size()).isEqualTo(loop.size());
+    }
+
+    /**
+     * 같은 수의 회원을 넣었을 때 힙 사용량과 GC 횟수/시간을 비교한다.
+     * 측정값은 JVM 상태에 따라 달라지므로 출력만 한다.
+     */
+    @Test
+    @DisplayName("Map 기반 저장소와 힙 사용량 비교")
+    void heapFootprint() {
+        int count = 500_000;
+
+        Map<Long, Member> map = new ConcurrentHashMap<>();
+        long[] mapResult = measure(() -> {
+            for (long id = 0; id < count; id++) {
+                map.put(id, new Member(id, "member" + id, Grade.BASIC));
+            }
+        });
+
+        OffHeapMemberRepository offHeap = new OffHeapMemberRepository(count);
+        long[] offHeapResult = measure(() -> {
+            for (long id = 0; id < count; id++) {
+                offHeap.save(new Member(id, "member" + id, Grade.BASIC));
+            }
+        });
+
+        System.out.println("members = " + count);
+        System.out.println("map     : heap = " + mapResult[0] / 1024 + "KB, gc count = " + mapResult[1] + ", gc time = " + mapResult[2] + "ms");
+        System.out.println("off-heap: heap = " + offHeapResult[0] / 1024 + "KB, gc count = " + offHeapResult[1] + ", gc time = " + offHeapResult[2] + "ms");
+        assertThat(map).hasSize(count);
+        assertThat(offHeap.size()).isEqualTo(count);
+    }
+
+    private List<Member> members(long from, long to) {
+        List<Member> members = new ArrayList<>();
+        for (long id = from; id < to; id++) {
+            members.add(new Member(id, "member" + id, Grade.BASIC));
+        }
+        return members;
+    }
+
+    // {남아 있는 힙 증가량, GC 횟수, GC 시간(ms)}
+    private long[] measure(Runnable task) {
+        long heapBefore = usedHeap();
+        long gcCountBefore = 0;
+        long gcTimeBefore = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCountBefore += gc.getCollectionCount();
+            gcTimeBefore += gc.getCollectionTime();
+        }
+
+        task.run();
+
+        long gcCount = -gcCountBefore;
+        long gcTime = -gcTimeBefore;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += gc.getCollectionCount();
+            gcTime += gc.getCollectionTime();
+        }
+        return new long[]{usedHeap() - heapBefore, gcCount, gcTime};
+    }
+
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
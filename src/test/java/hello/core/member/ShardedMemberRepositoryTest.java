@@ -0,0 +1,89 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedMemberRepositoryTest {
+
+    @Test
+    void saveAndFind() {
+        ShardedMemberRepository repository = new ShardedMemberRepository(4);
+        for (long id = -100; id < 100; id++) {
+            repository.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+
+        for (long id = -100; id < 100; id++) {
+            assertThat(repository.findById(id).getName()).isEqualTo("member" + id);
+        }
+        assertThat(repository.findById(100L)).isNull();
+        assertThat(repository.findById(null)).isNull();
+    }
+
+    @Test
+    void saveAllAndFindAllById() {
+        ShardedMemberRepository repository = new ShardedMemberRepository(3);
+        Member member1 = new Member(1L, "member1", Grade.VIP);
+        Member member2 = new Member(2L, "member2", Grade.BASIC);
+        repository.saveAll(List.of(member1, member2));
+
+        assertThat(repository.findAllById(new long[]{2L, 3L, 1L})).containsExactly(member2, null, member1);
+    }
+
+    @Test
+    void invalidShardCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedMemberRepository(0));
+    }
+
+    /**
+     * 쓰레드 수를 늘려가며 샤드 1개(락 하나)와 코어 수만큼의 샤드를 비교한다.
+     * 측정값은 출력만 한다.
+     */
+    @Test
+    @DisplayName("코어 수에 따른 처리량")
+    void scaling() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int perThread = 200_000;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            long single = opsPerSecond(new ShardedMemberRepository(1), threads, perThread);
+            long sharded = opsPerSecond(new ShardedMemberRepository(cores), threads, perThread);
+            System.out.println("threads = " + threads + ", 1 shard = " + single + " ops/s, "
+                    + cores + " shards = " + sharded + " ops/s");
+        }
+    }
+
+    private long opsPerSecond(MemberRepository repository, int threadCount, int perThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            long base = (long) t * perThread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long id = base; id < base + perThread; id++) {
+                    repository.save(new Member(id, "member", Grade.BASIC));
+                    repository.findById(id);
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return (long) threadCount * perThread * 1_000_000_000L / Math.max(elapsed, 1);
+    }
+}
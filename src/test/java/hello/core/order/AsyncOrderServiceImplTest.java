@@ -0,0 +1,150 @@
+package hello.core.order;
+
+import hello.core.AsyncExecutors;
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.member.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AsyncOrderServiceImplTest {
+    private final ExecutorService executor = AsyncExecutors.newDefaultExecutor();
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdown();
+    }
+
+    @Test
+    void joinAndCreate() {
+        // given
+        MemberRepository memberRepository = new SleepingMemberRepository(0);
+        AsyncMemberService memberService = new AsyncMemberServiceImpl(new MemberServiceImpl(memberRepository), executor);
+        AsyncOrderService orderService = new AsyncOrderServiceImpl(
+                new OrderServiceImpl(memberRepository, new RateDiscountPolicy()), executor);
+        // when
+        Order order = memberService.join(new Member(1L, "member1", Grade.VIP))
+                .thenCompose(ignored -> orderService.create(1L, "item", 10000))
+                .join();
+        // then
+        assertThat(order.getDiscountPrice()).isEqualTo(1000);
+        assertThat(memberService.findMember(1L).join().getName()).isEqualTo("member1");
+    }
+
+    @Test
+    @DisplayName("직접 만든 executor는 close할 때 종료하고, 받은 executor는 그대로 둔다.")
+    void closeShutsDownOwnedExecutor() {
+        // given
+        MemberRepository memberRepository = new SleepingMemberRepository(0);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        OrderService orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        AsyncMemberServiceImpl owningMemberService = new AsyncMemberServiceImpl(new MemberServiceImpl(memberRepository));
+        AsyncOrderServiceImpl owningOrderService = new AsyncOrderServiceImpl(orderService);
+        AsyncOrderServiceImpl sharingOrderService = new AsyncOrderServiceImpl(orderService, executor);
+        assertThat(owningOrderService.create(1L, "item", 10000).join().getDiscountPrice()).isEqualTo(1000);
+        // when
+        owningMemberService.close();
+        owningOrderService.close();
+        sharingOrderService.close();
+        // then
+        assertThatThrownBy(() -> owningMemberService.findMember(1L))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> owningOrderService.create(1L, "item", 10000))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(executor.isShutdown()).isFalse();
+        assertThat(sharingOrderService.create(1L, "item", 10000).join().getDiscountPrice()).isEqualTo(1000);
+    }
+
+    /**
+     * 조회마다 5ms 블로킹되는 리포지토리로 동시 요청 400개를 처리한다.
+     * 블로킹 경로는 요청 처리 쓰레드 16개짜리 풀에서 create를 직접 부르고, 비동기 경로는 기본 executor를 쓴다.
+     */
+    @Test
+    @DisplayName("느린 리포지토리에서 블로킹 경로와 비동기 경로의 p99 지연, 쓰레드 수 비교")
+    void loadTest() {
+        SleepingMemberRepository memberRepository = new SleepingMemberRepository(5);
+        for (long id = 0; id < 400; id++) {
+            memberRepository.save(new Member(id, "member" + id, Grade.VIP));
+        }
+        OrderService orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        ExecutorService requestThreads = Executors.newFixedThreadPool(16);
+        threads.resetPeakThreadCount();
+        long[] blocking = measure(id -> CompletableFuture.supplyAsync(() -> orderService.create(id, "item", 10000), requestThreads));
+        int blockingPeak = threads.getPeakThreadCount();
+        requestThreads.shutdown();
+
+        AsyncOrderService asyncOrderService = new AsyncOrderServiceImpl(orderService, executor);
+        threads.resetPeakThreadCount();
+        long[] async = measure(id -> asyncOrderService.create(id, "item", 10000));
+        int asyncPeak = threads.getPeakThreadCount();
+
+        System.out.println("blocking p99 = " + blocking[blocking.length * 99 / 100] / 1_000_000 + "ms, peak threads = " + blockingPeak
+                + " / async p99 = " + async[async.length * 99 / 100] / 1_000_000 + "ms, peak threads = " + asyncPeak);
+    }
+
+    // 요청 400개를 한꺼번에 보내고 요청마다 보낸 시점부터 완료까지의 시간(ns)을 정렬해서 반환한다.
+    private long[] measure(LongFunction<CompletableFuture<Order>> request) {
+        int requests = 400;
+        long[] latencies = new long[requests];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            long begin = System.nanoTime();
+            futures[i] = request.apply(i).thenAccept(order -> {
+                assertThat(order.getDiscountPrice()).isEqualTo(1000);
+                latencies[index] = System.nanoTime() - begin;
+            });
+        }
+        CompletableFuture.allOf(futures).join();
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    // 조회할 때마다 쓰레드를 잠재우는 리포지토리. 네트워크나 디스크 I/O를 기다리는 상황을 흉내 낸다.
+    static class SleepingMemberRepository implements MemberRepository {
+        private final Map<Long, Member> store = new ConcurrentHashMap<>();
+        private final long delayMillis;
+
+        SleepingMemberRepository(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void save(Member member) {
+            store.put(member.getId(), member);
+        }
+
+        @Override
+        public Member findById(Long memberId) {
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return store.get(memberId);
+        }
+
+        @Override
+        public void forEach(Consumer<? super Member> action) {
+            store.values().forEach(action);
+        }
+    }
+}
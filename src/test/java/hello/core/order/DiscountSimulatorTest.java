@@ -0,0 +1,122 @@
+package hello.core.order;
+
+import hello.core.discount.DiscountPolicy;
+import hello.core.discount.FixDiscountPolicy;
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.discount.RuleDiscountPolicy;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+import hello.core.member.ShardedMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DiscountSimulatorTest {
+    @Test
+    @DisplayName("후보 정책마다 할인 합계와 등급별 합계, 기준 정책과의 차이를 낸다.")
+    void simulate() {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        memberRepository.save(new Member(2L, "member2", Grade.BASIC));
+        OrderBatch orders = new OrderBatch()
+                .add(1L, "itemA", 10000)
+                .add(1L, "itemB", 5000)
+                .add(2L, "itemA", 20000)
+                .add(99L, "itemA", 10000);
+        Map<String, DiscountPolicy> candidates = new LinkedHashMap<>();
+        candidates.put("fixDiscountPolicy", new FixDiscountPolicy());
+        candidates.put("rules", RuleDiscountPolicy.parse("VIP * 0 20%\nBASIC itemA 0 1000"));
+        // when
+        SimulationReport report = new DiscountSimulator(memberRepository, new RateDiscountPolicy()).simulate(orders, candidates);
+        // then
+        assertThat(report.getPolicyNames()).containsExactly(DiscountSimulator.BASELINE, "fixDiscountPolicy", "rules");
+        assertThat(report.getOrderCount()).isEqualTo(3);
+        assertThat(report.getSkippedCount()).isEqualTo(1);
+        assertThat(report.getGrossAmount()).isEqualTo(35000);
+        assertThat(report.getTotalDiscount(DiscountSimulator.BASELINE)).isEqualTo(1500);
+        assertThat(report.getTotalDiscount("fixDiscountPolicy")).isEqualTo(2000);
+        assertThat(report.getDifference("fixDiscountPolicy")).isEqualTo(500);
+        assertThat(report.getGradeDiscount("rules", Grade.VIP)).isEqualTo(3000);
+        assertThat(report.getGradeDiscount("rules", Grade.BASIC)).isEqualTo(1000);
+        assertThat(report.getGradeDifference("rules", Grade.BASIC)).isEqualTo(1000);
+        assertThat(report.getIncreasedCount("fixDiscountPolicy")).isEqualTo(1);
+        assertThat(report.getDecreasedCount("fixDiscountPolicy")).isEqualTo(0);
+        assertThat(report.getIncreasedCount("rules")).isEqualTo(3);
+        assertThatThrownBy(() -> report.getTotalDiscount("unknown"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("생성자로 받은 정책을 기준으로 비교한다.")
+    void baselineFromConstructor() {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        OrderBatch orders = new OrderBatch().add(1L, "itemA", 20000);
+        DiscountSimulator simulator = new DiscountSimulator(memberRepository, new FixDiscountPolicy());
+        // when
+        SimulationReport report = simulator.simulate(orders, Map.of("rateDiscountPolicy", new RateDiscountPolicy()));
+        // then
+        assertThat(report.getTotalDiscount(DiscountSimulator.BASELINE)).isEqualTo(1000);
+        assertThat(report.getTotalDiscount("rateDiscountPolicy")).isEqualTo(2000);
+        assertThat(report.getDifference("rateDiscountPolicy")).isEqualTo(1000);
+    }
+
+    /**
+     * 200만 건을 쓰레드 1개와 여러 개로 돌려서 같은 결과가 나오는지 보고 걸린 시간을 출력한다.
+     */
+    @Test
+    void parallelReplay() {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(8);
+        for (long id = 0; id < 10_000; id++) {
+            memberRepository.save(new Member(id, "member" + id, id % 4 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        String[] items = {"itemA", "itemB", "itemC", "itemD"};
+        OrderBatch orders = new OrderBatch(2_000_000);
+        for (int i = 0; i < 2_000_000; i++) {
+            orders.add((i * 7919L) % 10_000, items[i & 3], 1000 + (i % 500) * 100);
+        }
+        Map<String, DiscountPolicy> candidates = new LinkedHashMap<>();
+        candidates.put("fixDiscountPolicy", new FixDiscountPolicy());
+        candidates.put("rules", RuleDiscountPolicy.parse("VIP itemA 30000 5000\nVIP * 0 12%\n* * 40000 1000"));
+        int parallelism = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        // when
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(parallelism);
+        SimulationReport expected = null;
+        SimulationReport actual = null;
+        long singleBest = Long.MAX_VALUE;
+        long parallelBest = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long begin = System.nanoTime();
+            expected = new DiscountSimulator(memberRepository, new RateDiscountPolicy(), single).simulate(orders, candidates);
+            singleBest = Math.min(singleBest, System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            actual = new DiscountSimulator(memberRepository, new RateDiscountPolicy(), parallel).simulate(orders, candidates);
+            parallelBest = Math.min(parallelBest, System.nanoTime() - begin);
+        }
+        single.shutdown();
+        parallel.shutdown();
+
+        // then
+        System.out.println("2,000,000 orders x 3 policies: parallelism 1 = " + singleBest / 1_000_000 + "ms, parallelism "
+                + parallelism + " = " + parallelBest / 1_000_000 + "ms (cores = " + Runtime.getRuntime().availableProcessors() + ")");
+        System.out.println(actual);
+        assertThat(actual.getOrderCount()).isEqualTo(2_000_000L);
+        for (String name : expected.getPolicyNames()) {
+            assertThat(actual.getTotalDiscount(name)).isEqualTo(expected.getTotalDiscount(name));
+            assertThat(actual.getGradeDiscounts(name)).isEqualTo(expected.getGradeDiscounts(name));
+            assertThat(actual.getIncreasedCount(name)).isEqualTo(expected.getIncreasedCount(name));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package hello.core.order;
+
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+import hello.core.member.ShardedMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IdempotencyCacheTest {
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    @DisplayName("같은 멱등 키로 다시 주문하면 처음 주문을 돌려준다.")
+    void createWithIdempotencyKey() {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        OrderService orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        // when
+        Order first = orderService.create("key-1", 1L, "item", 10000);
+        Order retried = orderService.create("key-1", 1L, "item", 10000);
+        Order other = orderService.create("key-2", 1L, "item", 10000);
+        // then
+        assertThat(retried).isSameAs(first);
+        assertThat(other == first).isFalse();
+    }
+
+    @Test
+    @DisplayName("다른 회원이 같은 멱등 키를 써도 각자 주문이 만들어진다.")
+    void sameKeyDifferentMembers() {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        memberRepository.save(new Member(2L, "member2", Grade.BASIC));
+        OrderService orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        // when
+        Order first = orderService.create("key-1", 1L, "itemA", 10000);
+        Order second = orderService.create("key-1", 2L, "itemA", 10000);
+        // then
+        assertThat(second == first).isFalse();
+        assertThat(second.getMemberId()).isEqualTo(2L);
+        assertThat(second.getDiscountPrice()).isEqualTo(0);
+        assertThat(orderService.create("key-1", 2L, "itemA", 10000)).isSameAs(second);
+    }
+
+    @Test
+    @DisplayName("같은 회원이 같은 키로 다른 주문을 보내면 거절한다.")
+    void sameKeyDifferentOrder() {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        OrderService orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.create("key-1", 1L, "itemA", 10000);
+        // when, then
+        assertThatThrownBy(() -> orderService.create("key-1", 1L, "itemB", 10000))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+        assertThatThrownBy(() -> orderService.create("key-1", 1L, "itemA", 20000))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+    }
+
+    @Test
+    @DisplayName("같은 키로 동시에 들어와도 한 번만 만들고, 모두 같은 결과를 받는다.")
+    void concurrentSameKey() throws Exception {
+        IdempotencyCache<Order> cache = new IdempotencyCache<>(100, Duration.ofMinutes(1), now::get);
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Order>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cache.computeIfAbsent("key", () -> {
+                    created.incrementAndGet();
+                    sleep(20);
+                    return new Order(1L, "item", 10000, 1000);
+                });
+            }));
+        }
+        start.countDown();
+
+        Order first = futures.get(0).get();
+        for (Future<Order> future : futures) {
+            assertThat(future.get()).isSameAs(first);
+        }
+        executor.shutdown();
+        assertThat(created.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("실패한 요청은 기억하지 않아서 재시도가 새로 처리된다.")
+    void failureIsNotCached() {
+        IdempotencyCache<Order> cache = new IdempotencyCache<>(100, Duration.ofMinutes(1), now::get);
+
+        assertThatThrownBy(() -> cache.computeIfAbsent("key", () -> {
+            throw new IllegalStateException("일시적인 실패");
+        })).isInstanceOf(IllegalStateException.class);
+        Order order = cache.computeIfAbsent("key", () -> new Order(1L, "item", 10000, 1000));
+
+        assertThat(order.getItemName()).isEqualTo("item");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("키는 window 동안 기억하고 두 번 세대가 바뀌면 잊는다.")
+    void window() {
+        IdempotencyCache<Order> cache = new IdempotencyCache<>(100, Duration.ofSeconds(10), now::get);
+        AtomicInteger created = new AtomicInteger();
+        cache.computeIfAbsent("key", () -> new Order(1L, "item" + created.incrementAndGet(), 10000, 0));
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        cache.computeIfAbsent("key", () -> new Order(1L, "item" + created.incrementAndGet(), 10000, 0));
+        assertThat(created.get()).isEqualTo(1);
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        cache.computeIfAbsent("key", () -> new Order(1L, "item" + created.incrementAndGet(), 10000, 0));
+        assertThat(created.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("키가 많아져도 maximumSize를 넘지 않는다.")
+    void bounded() {
+        IdempotencyCache<Order> cache = new IdempotencyCache<>(1_000, Duration.ofHours(1), now::get);
+        for (int i = 0; i < 10_000; i++) {
+            cache.computeIfAbsent("key-" + i, () -> new Order(1L, "item", 10000, 0));
+        }
+        assertThat(cache.size()).isLessThan(1_001);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package hello.core.order;
+
+import hello.core.item.ItemCatalog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class JournalOrderRepositoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void saveAndFindByMemberId() {
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory)) {
+            // given
+            repository.save(new Order(1L, "itemA", 10000, 1000));
+            repository.save(new Order(2L, "itemB", 20000, 0));
+            repository.save(new Order(1L, null, 5000, 500));
+            // when
+            List<Order> orders = repository.findByMemberId(1L);
+            // then
+            assertThat(orders).hasSize(2);
+            assertThat(orders.get(0).getItemName()).isEqualTo("itemA");
+            assertThat(orders.get(1).getItemName()).isNull();
+            assertThat(orders.get(1).calculatePrice()).isEqualTo(4500);
+            assertThat(repository.findByMemberId(3L)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("상품 id도 저장하고, 다시 열어도 그대로 읽는다.")
+    void itemIdRoundTrip() {
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory)) {
+            repository.save(new Order(1L, 7, "itemA", 10000, 1000));
+            repository.save(new Order(1L, "itemB", 20000, 0));
+        }
+
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory)) {
+            List<Order> orders = repository.findByMemberId(1L);
+            assertThat(orders).hasSize(2);
+            assertThat(orders.get(0).getItemId()).isEqualTo(7);
+            assertThat(orders.get(0).getItemName()).isEqualTo("itemA");
+            assertThat(orders.get(0).getDiscountPrice()).isEqualTo(1000);
+            assertThat(orders.get(1).getItemId()).isEqualTo(ItemCatalog.UNKNOWN_ID);
+        }
+    }
+
+    @Test
+    @DisplayName("세그먼트가 가득 차면 다음 세그먼트로 넘어가고, 다시 열면 모두 복구한다.")
+    void rollAndRecover() {
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory, 1024)) {
+            for (int i = 0; i < 200; i++) {
+                repository.save(new Order((long) i % 10, "item" + i, 1000 + i, 0));
+            }
+            assertThat(repository.getSegmentCount()).isGreaterThan(1);
+        }
+
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory, 1024)) {
+            assertThat(repository.size()).isEqualTo(200);
+            List<Order> orders = repository.findByMemberId(3L);
+            assertThat(orders).hasSize(20);
+            assertThat(orders.get(19).getItemName()).isEqualTo("item193");
+        }
+    }
+
+    @Test
+    @DisplayName("지운 회원의 주문은 compact 후에도, 다시 열어도 돌아오지 않는다.")
+    void deleteAndCompact() throws Exception {
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory, 1024)) {
+            for (int i = 0; i < 200; i++) {
+                repository.save(new Order((long) i % 10, "item" + i, 1000, 0));
+            }
+            assertThat(repository.deleteByMemberId(3L)).isEqualTo(20);
+            repository.save(new Order(3L, "afterDelete", 1000, 0));
+            long before = totalSegmentBytes();
+
+            long reclaimed = repository.compact();
+
+            assertThat(reclaimed).isGreaterThan(0L);
+            assertThat(totalSegmentBytes()).isLessThan(before);
+            assertThat(repository.findByMemberId(3L)).hasSize(1);
+            assertThat(repository.findByMemberId(4L)).hasSize(20);
+            assertThat(repository.findByMemberId(4L).get(19).getItemName()).isEqualTo("item194");
+        }
+
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory, 1024)) {
+            assertThat(repository.size()).isEqualTo(181);
+            assertThat(repository.findByMemberId(3L).get(0).getItemName()).isEqualTo("afterDelete");
+            // 다시 열고 compact 해도 결과는 같다.
+            repository.compact();
+            assertThat(repository.findByMemberId(3L)).hasSize(1);
+            assertThat(repository.findByMemberId(4L)).hasSize(20);
+        }
+    }
+
+    @Test
+    @DisplayName("쓰다 만 마지막 기록은 버리고 그 앞까지 복구한다.")
+    void ignoreTornTail() throws Exception {
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory, 4096)) {
+            repository.save(new Order(1L, "itemA", 10000, 1000));
+            repository.save(new Order(1L, "itemB", 10000, 1000));
+        }
+        // 두 번째 기록의 본문 한 바이트를 망가뜨린다.
+        Path segment = directory.resolve(JournalOrderRepository.SEGMENT_PREFIX + "0000000001" + JournalOrderRepository.SEGMENT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            int second = 8 + length.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[]{42}), second + 8 + 2);
+        }
+
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory, 4096)) {
+            assertThat(repository.findByMemberId(1L)).hasSize(1);
+            repository.save(new Order(1L, "itemC", 10000, 1000));
+        }
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory, 4096)) {
+            assertThat(repository.findByMemberId(1L).get(1).getItemName()).isEqualTo("itemC");
+        }
+    }
+
+    /**
+     * 8개 쓰레드가 save를 하나씩 부를 때(그룹 커밋)와 1,000건씩 saveAll 할 때의 처리량을 출력한다.
+     */
+    @Test
+    @DisplayName("그룹 커밋 처리량")
+    void throughput() throws Exception {
+        int threadCount = 8;
+        int perThread = 10_000;
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory.resolve("save"))) {
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            List<Future<?>> futures = new ArrayList<>();
+            long begin = System.nanoTime();
+            for (int t = 0; t < threadCount; t++) {
+                long memberId = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        repository.save(new Order(memberId, "item", 10000, 1000));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+            executor.shutdown();
+            System.out.println("save x " + threadCount + " threads = " + (long) threadCount * perThread * 1_000_000_000L / elapsed + " orders/s");
+            assertThat(repository.size()).isEqualTo(threadCount * perThread);
+        }
+
+        try (JournalOrderRepository repository = new JournalOrderRepository(directory.resolve("saveAll"))) {
+            List<Order> batch = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                batch.add(new Order((long) i, "item", 10000, 1000));
+            }
+            long begin = System.nanoTime();
+            for (int i = 0; i < 200; i++) {
+                repository.saveAll(batch);
+            }
+            long elapsed = System.nanoTime() - begin;
+            System.out.println("saveAll(1000) = " + 200_000L * 1_000_000_000L / elapsed + " orders/s");
+            assertThat(repository.findByMemberId(7L)).hasSize(200);
+        }
+    }
+
+    private long totalSegmentBytes() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            long total = 0;
+            for (Path file : (Iterable<Path>) files::iterator) {
+                total += Files.size(file);
+            }
+            return total;
+        }
+    }
+}
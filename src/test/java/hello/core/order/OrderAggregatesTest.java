@@ -0,0 +1,119 @@
+package hello.core.order;
+
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+import hello.core.member.ShardedMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderAggregatesTest {
+    @Test
+    void recordFromCreate() {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        memberRepository.save(new Member(2L, "member2", Grade.BASIC));
+        OrderAggregates aggregates = new OrderAggregates();
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setOrderAggregates(aggregates);
+        // when
+        orderService.create(1L, "itemA", 10000);
+        orderService.create(1L, "itemB", 20000);
+        orderService.create(2L, "itemC", 5000);
+        // then
+        OrderTotals member1 = aggregates.getMemberTotals(1L);
+        assertThat(member1.getOrderCount()).isEqualTo(2L);
+        assertThat(member1.getGrossAmount()).isEqualTo(30000L);
+        assertThat(member1.getNetAmount()).isEqualTo(27000L);
+        assertThat(aggregates.getGradeTotals(Grade.VIP).getDiscountAmount()).isEqualTo(3000L);
+        assertThat(aggregates.getGradeTotals().get(Grade.BASIC).getNetAmount()).isEqualTo(5000L);
+        assertThat(aggregates.getMemberTotals(3L)).isSameAs(OrderTotals.EMPTY);
+    }
+
+    @Test
+    @DisplayName("오늘 집계는 자정이 지나면 새로 시작하고, 누적 집계는 그대로 이어진다.")
+    void todayTotals() {
+        // given
+        AtomicLong now = new AtomicLong(LocalDate.of(2024, 1, 1).atTime(23, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+        OrderAggregates aggregates = new OrderAggregates(1, ZoneOffset.UTC, now::get);
+        aggregates.record(1L, Grade.VIP, 10000, 1000);
+        aggregates.record(2L, Grade.VIP, 20000, 2000);
+        assertThat(aggregates.getTodayGradeTotals(Grade.VIP).getOrderCount()).isEqualTo(2L);
+        // when
+        now.addAndGet(Duration.ofHours(2).toMillis());
+        OrderTotals beforeFirstOrder = aggregates.getTodayGradeTotals(Grade.VIP);
+        aggregates.record(1L, Grade.VIP, 5000, 500);
+        // then
+        assertThat(aggregates.getToday()).isEqualTo(LocalDate.of(2024, 1, 2));
+        assertThat(beforeFirstOrder).isSameAs(OrderTotals.EMPTY);
+        OrderTotals today = aggregates.getTodayGradeTotals(Grade.VIP);
+        assertThat(today.getOrderCount()).isEqualTo(1L);
+        assertThat(today.getNetAmount()).isEqualTo(4500L);
+        assertThat(aggregates.getTodayGradeTotals().get(Grade.BASIC).getOrderCount()).isEqualTo(0L);
+        assertThat(aggregates.getGradeTotals(Grade.VIP).getOrderCount()).isEqualTo(3L);
+    }
+
+    /**
+     * 모든 주문이 상품 가격 1000, 할인 100이면 어느 시점에 읽어도 합계는 주문 수의 1000배, 100배여야 한다.
+     */
+    @Test
+    @DisplayName("쓰는 도중에 읽어도 주문 수와 금액이 어긋나지 않는다.")
+    void consistentSnapshot() throws Exception {
+        OrderAggregates aggregates = new OrderAggregates(4);
+        int writers = 4;
+        int perWriter = 200_000;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong torn = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                for (OrderTotals totals : List.of(aggregates.getGradeTotals(Grade.VIP), aggregates.getMemberTotals(7L))) {
+                    if (totals.getGrossAmount() != totals.getOrderCount() * 1000 || totals.getDiscountAmount() != totals.getOrderCount() * 100) {
+                        torn.incrementAndGet();
+                    }
+                }
+                reads.incrementAndGet();
+            }
+        });
+        reader.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int t = 0; t < writers; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    aggregates.record(i % 10, Grade.VIP, 1000, 100);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        running.set(false);
+        reader.join();
+
+        System.out.println("record = " + (long) writers * perWriter * 1_000_000_000L / elapsed + " ops/s, snapshot reads = " + reads.get());
+        assertThat(torn.get()).isEqualTo(0L);
+        assertThat(aggregates.getGradeTotals(Grade.VIP).getOrderCount()).isEqualTo((long) writers * perWriter);
+        assertThat(aggregates.getMemberTotals(7L).getOrderCount()).isEqualTo((long) writers * perWriter / 10);
+    }
+}
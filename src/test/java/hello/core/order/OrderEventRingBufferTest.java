@@ -0,0 +1,281 @@
+package hello.core.order;
+
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.item.ItemCatalog;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+import hello.core.member.ShardedMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderEventRingBufferTest {
+    @Test
+    @DisplayName("여러 쓰레드가 발행해도 모든 핸들러가 모든 이벤트를 발행자별 순서대로 받는다.")
+    void multiProducerDelivery() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            int producers = 4;
+            int perProducer = 5_000;
+            RecordingHandler first = new RecordingHandler(producers);
+            RecordingHandler second = new RecordingHandler(producers);
+            OrderEventRingBuffer ringBuffer = new OrderEventRingBuffer(256, waitStrategy, first, second).start();
+
+            ExecutorService executor = Executors.newFixedThreadPool(producers);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long memberId = p;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        ringBuffer.publish(memberId, Grade.VIP, ItemCatalog.UNKNOWN_ID, "item", i, 0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            ringBuffer.close();
+
+            for (RecordingHandler handler : List.of(first, second)) {
+                assertThat(handler.count).isEqualTo((long) producers * perProducer);
+                assertThat(handler.outOfOrder).isEqualTo(0L);
+            }
+            assertThat(first.batches).isGreaterThan(0L);
+        }
+    }
+
+    @Test
+    @DisplayName("가장 느린 핸들러보다 bufferSize만큼 앞서면 tryPublish는 false를 돌려준다.")
+    void backpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OrderEventRingBuffer ringBuffer = new OrderEventRingBuffer(8, WaitStrategy.SLEEPING, (event, sequence, endOfBatch) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).start();
+        Order order = new Order(1L, "item", 10000, 1000);
+
+        int accepted = 0;
+        while (ringBuffer.tryPublish(order, Grade.VIP)) {
+            accepted++;
+        }
+
+        // 핸들러가 첫 이벤트를 잡고 있으므로 최대 bufferSize + 1개까지 들어간다.
+        assertThat(accepted).isGreaterThan(7);
+        assertThat(accepted).isLessThan(10);
+        release.countDown();
+        ringBuffer.close();
+    }
+
+    @Test
+    @DisplayName("핸들러가 예외를 던져도 다음 이벤트를 계속 처리한다.")
+    void handlerError() {
+        AtomicLong handled = new AtomicLong();
+        OrderEventRingBuffer ringBuffer = new OrderEventRingBuffer(16, WaitStrategy.YIELDING, (event, sequence, endOfBatch) -> {
+            if (sequence == 3) {
+                throw new IllegalStateException("boom");
+            }
+            handled.incrementAndGet();
+        }).start();
+
+        for (int i = 0; i < 10; i++) {
+            ringBuffer.publish(new Order(1L, "item", 10000, 0), Grade.BASIC);
+        }
+        ringBuffer.close();
+
+        assertThat(handled.get()).isEqualTo(9L);
+        assertThat(ringBuffer.getHandlerErrorCount()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("버퍼가 가득 차면 create는 기본으로 자리가 날 때까지 기다리고 이벤트를 잃지 않는다.")
+    void createBlocksWhenFull() throws Exception {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong handled = new AtomicLong();
+        OrderEventRingBuffer ringBuffer = new OrderEventRingBuffer(8, WaitStrategy.SLEEPING, (event, sequence, endOfBatch) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.incrementAndGet();
+        }).start();
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setOrderEvents(ringBuffer);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 12; i++) {
+                orderService.create(1L, "item", 10000);
+            }
+        });
+
+        // when
+        producer.start();
+        producer.join(200);
+        boolean blocked = producer.isAlive();
+        release.countDown();
+        producer.join(5000);
+        ringBuffer.close();
+
+        // then
+        assertThat(blocked).isTrue();
+        assertThat(producer.isAlive()).isFalse();
+        assertThat(handled.get()).isEqualTo(12L);
+        assertThat(ringBuffer.getDroppedCount()).isEqualTo(0L);
+    }
+
+    @Test
+    @DisplayName("DROP이면 버퍼가 가득 차도 create는 기다리지 않고, 이벤트를 버린 수를 센다.")
+    void createDropsWhenFull() throws Exception {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong handled = new AtomicLong();
+        OrderEventRingBuffer ringBuffer = new OrderEventRingBuffer(8, WaitStrategy.SLEEPING, (event, sequence, endOfBatch) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.incrementAndGet();
+        }).start();
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setOrderEvents(ringBuffer);
+        orderService.setEventOverflowPolicy(OverflowPolicy.DROP);
+
+        // when
+        for (int i = 0; i < 12; i++) {
+            orderService.create(1L, "item", 10000);
+        }
+        long dropped = ringBuffer.getDroppedCount();
+        release.countDown();
+        ringBuffer.close();
+
+        // then
+        // 핸들러가 첫 이벤트를 잡고 있어서 bufferSize개만 들어가고 나머지는 버린다.
+        assertThat(dropped).isEqualTo(4L);
+        assertThat(handled.get()).isEqualTo(8L);
+    }
+
+    @Test
+    @DisplayName("create는 주문 이벤트를 회원 등급과 함께 발행한다.")
+    void publishFromCreate() {
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        List<String> received = new ArrayList<>();
+        OrderEventRingBuffer ringBuffer = new OrderEventRingBuffer(16, WaitStrategy.SLEEPING,
+                (event, sequence, endOfBatch) -> received.add(event.getGrade() + ":" + event.calculatePrice())).start();
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setOrderEvents(ringBuffer);
+
+        orderService.create(1L, "item", 10000);
+        ringBuffer.close();
+
+        assertThat(received).containsExactly("VIP:9000");
+    }
+
+    /**
+     * 후속 처리 하나가 주문마다 20us 걸릴 때, create 안에서 바로 부르는 경우와 링 버퍼로 넘기는 경우의 create 지연을 비교한다.
+     */
+    @Test
+    @DisplayName("후속 처리를 create 안에서 할 때와 링 버퍼로 넘길 때의 create 지연 비교")
+    void latency() {
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        OrderService orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        OrderEventHandler slowHandler = (event, sequence, endOfBatch) -> spin(20_000);
+        OrderEvent inlineEvent = new OrderEvent();
+
+        long[] inline = new long[5_000];
+        for (int i = 0; i < inline.length; i++) {
+            long begin = System.nanoTime();
+            Order order = orderService.create(1L, "item", 10000);
+            inlineEvent.set(order.getMemberId(), Grade.VIP, order.getItemId(), order.getItemName(), order.getItemPrice(), order.getDiscountPrice());
+            slowHandler.onEvent(inlineEvent, i, true);
+            inline[i] = System.nanoTime() - begin;
+        }
+
+        OrderEventRingBuffer ringBuffer = new OrderEventRingBuffer(8192, WaitStrategy.SLEEPING, slowHandler).start();
+        OrderServiceImpl publishing = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        publishing.setOrderEvents(ringBuffer);
+        long[] published = new long[5_000];
+        for (int i = 0; i < published.length; i++) {
+            long begin = System.nanoTime();
+            publishing.create(1L, "item", 10000);
+            published[i] = System.nanoTime() - begin;
+        }
+        ringBuffer.close();
+
+        Arrays.sort(inline);
+        Arrays.sort(published);
+        System.out.println("inline p50 = " + inline[inline.length / 2] / 1_000 + "us, p99 = " + inline[inline.length * 99 / 100] / 1_000 + "us"
+                + " / ring buffer p50 = " + published[published.length / 2] / 1_000 + "us, p99 = " + published[published.length * 99 / 100] / 1_000 + "us");
+    }
+
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // 발행자(회원 id)별로 itemPrice가 0부터 1씩 늘어나는지 확인한다.
+    @Test
+    @DisplayName("핸들러가 이벤트에서 다시 만든 주문은 상품 id까지 원래 주문과 같다.")
+    void toOrderKeepsItemId() {
+        // given
+        List<Order> received = new ArrayList<>();
+        OrderEventRingBuffer ringBuffer = new OrderEventRingBuffer(8, WaitStrategy.SLEEPING,
+                (event, sequence, endOfBatch) -> received.add(event.toOrder())).start();
+        // when
+        ringBuffer.publish(new Order(1L, 7, "itemA", 10000, 1000), Grade.VIP);
+        ringBuffer.publish(new Order(2L, "itemB", 20000, 0), Grade.BASIC);
+        ringBuffer.close();
+        // then
+        assertThat(received).hasSize(2);
+        assertThat(received.get(0).getItemId()).isEqualTo(7);
+        assertThat(received.get(0).getItemName()).isEqualTo("itemA");
+        assertThat(received.get(0).getDiscountPrice()).isEqualTo(1000);
+        assertThat(received.get(1).getItemId()).isEqualTo(ItemCatalog.UNKNOWN_ID);
+    }
+
+    static class RecordingHandler implements OrderEventHandler {
+        private final int[] nextPrice;
+        private long count;
+        private long outOfOrder;
+        private long batches;
+
+        RecordingHandler(int producers) {
+            this.nextPrice = new int[producers];
+        }
+
+        @Override
+        public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+            int producer = (int) event.getMemberId();
+            if (event.getItemPrice() != nextPrice[producer]) {
+                outOfOrder++;
+            }
+            nextPrice[producer] = event.getItemPrice() + 1;
+            count++;
+            if (endOfBatch) {
+                batches++;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package hello.core.order;
+
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+import hello.core.member.ShardedMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderRateLimiterTest {
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    @DisplayName("burst만큼 몰아서 받고, 그 뒤로는 초당 한도만큼만 받는다.")
+    void burstThenRate() {
+        // given
+        OrderRateLimiter limiter = new OrderRateLimiter(limits(), 100, now::get);
+        // when
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (limiter.tryAcquire(1L, Grade.BASIC)) {
+                accepted++;
+            }
+        }
+        long retryAfter = limiter.reserve(1L, Grade.BASIC);
+        now.addAndGet(retryAfter);
+        // then
+        assertThat(accepted).isEqualTo(3);
+        assertThat(retryAfter).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limiter.tryAcquire(1L, Grade.BASIC)).isTrue();
+        assertThat(limiter.tryAcquire(1L, Grade.BASIC)).isFalse();
+        assertThat(limiter.getRejectedCount(Grade.BASIC)).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("VIP는 한도가 더 크고, 회원마다 따로 센다.")
+    void limitsByGradeAndMember() {
+        // given
+        OrderRateLimiter limiter = new OrderRateLimiter(limits(), 100, now::get);
+        // when
+        int vip = 0;
+        int basic = 0;
+        for (int i = 0; i < 100; i++) {
+            vip += limiter.tryAcquire(1L, Grade.VIP) ? 1 : 0;
+            basic += limiter.tryAcquire(2L, Grade.BASIC) ? 1 : 0;
+        }
+        // then
+        assertThat(vip).isEqualTo(20);
+        assertThat(basic).isEqualTo(3);
+        assertThat(limiter.getAcceptedCount(Grade.VIP)).isEqualTo(20);
+        assertThat(limiter.getRejectedCount()).isEqualTo(80 + 97);
+    }
+
+    @Test
+    @DisplayName("버킷 수가 maximumMembers를 넘으면 가득 찬 버킷부터 지운다.")
+    void evictsFullBuckets() {
+        // given
+        OrderRateLimiter limiter = new OrderRateLimiter(limits(), 100, now::get);
+        for (long id = 0; id < 100; id++) {
+            limiter.tryAcquire(id, Grade.BASIC);
+        }
+        // when
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.tryAcquire(1000L, Grade.BASIC);
+        // then
+        assertThat(limiter.getMemberCount()).isLessThan(100);
+        assertThat(limiter.getEvictedCount()).isEqualTo(0);
+
+        // 아직 차지 않은 버킷만 남으면 아무 버킷이나 지워서라도 크기를 지킨다.
+        for (long id = 2000; id < 2200; id++) {
+            limiter.tryAcquire(id, Grade.BASIC);
+        }
+        assertThat(limiter.getMemberCount()).isLessThan(101);
+        assertThat(limiter.getEvictedCount()).isGreaterThan(0);
+    }
+
+    @Test
+    @DisplayName("한도를 넘은 주문은 OrderRateLimitExceededException으로 거절한다.")
+    void createRejected() {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.BASIC));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setOrderRateLimiter(new OrderRateLimiter(limits(), 100, now::get));
+        for (int i = 0; i < 3; i++) {
+            orderService.create(1L, "item", 10000);
+        }
+        // when, then
+        assertThatThrownBy(() -> orderService.create(1L, "item", 10000))
+                .isInstanceOf(OrderRateLimitExceededException.class)
+                .hasMessageContaining("memberId = 1");
+    }
+
+    @Test
+    @DisplayName("여러 쓰레드가 한 회원으로 몰려도 burst보다 많이 받지 않는다.")
+    void concurrentAcquire() throws Exception {
+        // given
+        OrderRateLimiter limiter = new OrderRateLimiter(limits(), 100, now::get);
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10_000; i++) {
+                    if (limiter.tryAcquire(1L, Grade.VIP)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        // when
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - startedAt;
+        // then
+        System.out.println("80000 tryAcquire = " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+        assertThat(accepted.get()).isEqualTo(20);
+        assertThat(limiter.getRejectedCount(Grade.VIP)).isEqualTo(80_000 - 20);
+    }
+
+    // BASIC은 초당 10개, 한 번에 3개까지. VIP는 초당 100개, 한 번에 20개까지.
+    private static Map<Grade, OrderRateLimiter.Limit> limits() {
+        Map<Grade, OrderRateLimiter.Limit> limits = new EnumMap<>(Grade.class);
+        limits.put(Grade.BASIC, OrderRateLimiter.Limit.perSecond(10, 3));
+        limits.put(Grade.VIP, OrderRateLimiter.Limit.perSecond(100, 20));
+        return limits;
+    }
+}
@@ -0,0 +1,140 @@
+package hello.core.order;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+import hello.core.member.ShardedMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderReportEngineTest {
+    private final OrderReportEngine engine = new OrderReportEngine();
+
+    @Test
+    void reports() {
+        // given
+        MemberRepository memberRepository = new ShardedMemberRepository(1);
+        memberRepository.save(new Member(1L, "member1", Grade.VIP));
+        memberRepository.save(new Member(2L, "member2", Grade.BASIC));
+        List<Order> orders = List.of(
+                new Order(1L, "itemA", 10000, 1000),
+                new Order(1L, "itemB", 20000, 2000),
+                new Order(2L, "itemA", 10000, 0),
+                new Order(3L, "itemA", 5000, 0));
+        // when
+        Map<String, Long> revenue = engine.revenueByItem(orders);
+        Map<Grade, Long> discount = engine.discountByGrade(orders, memberRepository);
+        Map<Long, Long> top = engine.topMembers(orders, 2);
+        // then
+        assertThat(revenue).containsEntry("itemA", 24000L);
+        assertThat(revenue).containsEntry("itemB", 18000L);
+        assertThat(discount).containsEntry(Grade.VIP, 3000L);
+        assertThat(discount).containsEntry(Grade.BASIC, 0L);
+        assertThat(new ArrayList<>(top.keySet())).containsExactly(1L, 2L);
+        assertThat(engine.countBy(orders, Order::getItemName)).containsEntry("itemA", 3L);
+    }
+
+    @Test
+    @DisplayName("여러 구간으로 나눠 모아도 한 번에 더한 것과 같다.")
+    void sameAsSequential() {
+        List<Order> orders = orders(300_000);
+        Map<String, Long> expected = new HashMap<>();
+        for (Order order : orders) {
+            expected.merge(order.getItemName(), (long) order.calculatePrice(), Long::sum);
+        }
+
+        assertThat(engine.revenueByItem(orders)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("리포지토리를 목록으로 복사하지 않고 훑어도 목록으로 더한 것과 같다.")
+    void sumByRepository() {
+        List<Order> orders = orders(300_000);
+        OrderRepository orderRepository = new ListOrderRepository(orders);
+
+        Map<String, Long> revenue = engine.sumBy(orderRepository, Order::getItemName, Order::calculatePrice);
+
+        assertThat(revenue).isEqualTo(engine.revenueByItem(orders));
+        assertThat(engine.sumBy(new ListOrderRepository(List.of()), Order::getItemName, Order::calculatePrice)).isEmpty();
+    }
+
+    /**
+     * 주문 200만 건을 상품 1,000개로 묶는 데 걸리는 시간을 병렬도 1부터 코어 수까지 바꿔 가며 출력한다.
+     * 병렬도마다 결과가 한 번에 더한 것과 같은지도 확인한다. 오래 걸리므로 gradle test에서는 빼고 gradle benchmark로 돌린다.
+     */
+    @Test
+    @Tag("benchmark")
+    @DisplayName("병렬도에 따른 처리 시간")
+    void scaling() {
+        List<Order> orders = orders(2_000_000);
+        Map<String, Long> expected = new HashMap<>();
+        for (Order order : orders) {
+            expected.merge(order.getItemName(), (long) order.calculatePrice(), Long::sum);
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            OrderReportEngine engine = new OrderReportEngine(pool);
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < 5; round++) {
+                long begin = System.nanoTime();
+                Map<String, Long> revenue = engine.revenueByItem(orders);
+                best = Math.min(best, System.nanoTime() - begin);
+                assertThat(revenue).isEqualTo(expected);
+            }
+            pool.shutdown();
+            System.out.println("parallelism = " + parallelism + ", revenueByItem(" + orders.size() + ") = " + best / 1_000_000 + "ms");
+        }
+    }
+
+    private static List<Order> orders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        String[] items = new String[1_000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = "item" + i;
+        }
+        for (int i = 0; i < count; i++) {
+            orders.add(new Order((long) i % 50_000, items[(i * 31) % items.length], 1000 + i % 500, i % 7 == 0 ? 100 : 0));
+        }
+        return orders;
+    }
+
+    // forEach만 쓰는 리포트용 리포지토리
+    static class ListOrderRepository implements OrderRepository {
+        private final List<Order> orders;
+
+        ListOrderRepository(List<Order> orders) {
+            this.orders = orders;
+        }
+
+        @Override
+        public void save(Order order) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Order> findByMemberId(Long memberId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int deleteByMemberId(Long memberId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void forEach(Consumer<? super Order> action) {
+            orders.forEach(action);
+        }
+    }
+}
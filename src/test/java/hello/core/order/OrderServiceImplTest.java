@@ -2,10 +2,14 @@ package hello.core.order;
 
 import hello.core.discount.DiscountPolicy;
 import hello.core.discount.RateDiscountPolicy;
+import hello.core.discount.RuleDiscountPolicy;
 import hello.core.member.*;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.assertj.core.api.Assertions.*;
 
@@ -32,4 +36,147 @@ class OrderServiceImplTest {
         Order order = orderService.create(memberId, "item", 10000);
         assertThat(order.getDiscountPrice()).isEqualTo(1000);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("없는 회원의 주문은 MemberNotFoundException으로 거절한다.")
+    void createWithoutMember() {
+        assertThatThrownBy(() -> orderService.create(99L, "item", 10000))
+                .isInstanceOf(MemberNotFoundException.class)
+                .hasMessageContaining("memberId = 99");
+        assertThatThrownBy(() -> orderService.quoteDiscount(99L, "item", 10000))
+                .isInstanceOf(MemberNotFoundException.class);
+    }
+
+    @Test
+    void createAll() {
+        // given
+        memberService.join(new Member(1L, "member1", Grade.VIP));
+        memberService.join(new Member(2L, "member2", Grade.BASIC));
+        OrderBatch batch = new OrderBatch()
+                .add(2L, "itemA", 10000)
+                .add(1L, "itemB", 20000)
+                .add(1L, "itemC", 5000);
+        // when
+        OrderBatchResult result = orderService.createAll(batch);
+        // then
+        assertThat(result.size()).isEqualTo(3);
+        assertThat(result.getDiscountPrice(0)).isEqualTo(0);
+        assertThat(result.getDiscountPrice(1)).isEqualTo(2000);
+        assertThat(result.getOrder(2).getItemName()).isEqualTo("itemC");
+        assertThat(result.calculatePrice(2)).isEqualTo(4500);
+        assertThat(result.getTotalPrice()).isEqualTo(35000 - 2500);
+
+        // 계산이 끝난 batch에 주문을 더해도 결과는 바뀌지 않는다.
+        batch.add(1L, "itemD", 1000);
+        assertThat(result.size()).isEqualTo(3);
+    }
+
+    @Test
+    void quote() {
+        // given
+        memberService.join(new Member(1L, "member1", Grade.VIP));
+        PriceQuote quote = new PriceQuote();
+        // when
+        orderService.quote(1L, "itemA", 20000, quote);
+        // then
+        assertThat(orderService.quoteDiscount(1L, "itemA", 10000)).isEqualTo(1000);
+        assertThat(quote.getItemName()).isEqualTo("itemA");
+        assertThat(quote.getDiscountPrice()).isEqualTo(2000);
+        assertThat(quote.calculatePrice()).isEqualTo(18000);
+    }
+
+    @Test
+    @DisplayName("상품별 할인 규칙이 있어도 견적과 주문의 할인 금액이 같다.")
+    void quoteMatchesCreateWithItemRule() {
+        // given
+        memberService.join(new Member(1L, "member1", Grade.VIP));
+        RuleDiscountPolicy rules = RuleDiscountPolicy.parse("""
+                VIP  itemA  0  3000
+                VIP  *      0  10%
+                """);
+        OrderService service = new OrderServiceImpl(memberRepository, rules);
+        PriceQuote quote = new PriceQuote();
+        // when
+        service.quote(1L, "itemA", 20000, quote);
+        Order itemA = service.create(1L, "itemA", 20000);
+        Order itemB = service.create(1L, "itemB", 20000);
+        // then
+        assertThat(quote.getDiscountPrice()).isEqualTo(3000);
+        assertThat(quote.getDiscountPrice()).isEqualTo(itemA.getDiscountPrice());
+        assertThat(service.quoteDiscount(1L, "itemB", 20000)).isEqualTo(itemB.getDiscountPrice());
+        assertThat(itemB.getDiscountPrice()).isEqualTo(2000);
+    }
+
+    /**
+     * Long 캐시(-128 ~ 127) 밖의 회원 id로 견적을 내도 견적마다 힙에 할당하지 않아야 한다.
+     * 쓰레드별 할당량은 com.sun.management.ThreadMXBean으로 잰다.
+     * JIT 재컴파일이나 측정 자체가 가끔 조금 할당하므로 0이 아니라 견적 수보다 훨씬 작은 값으로 확인한다.
+     * 견적마다 Long 하나(16바이트)만 박싱해도 수십 MB가 나온다.
+     */
+    @Test
+    @DisplayName("quote는 할당하지 않는다.")
+    void quoteAllocatesNothing() {
+        MemberRepository repository = new ShardedMemberRepository(4);
+        for (long id = 1_000; id < 2_000; id++) {
+            repository.save(new Member(id, "member" + id, id % 2 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        OrderService service = new OrderServiceImpl(repository, new RateDiscountPolicy());
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        PriceQuote quote = new PriceQuote();
+
+        // JIT 컴파일이 끝날 때까지 충분히 돌린다.
+        long total = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            total += service.quote(1_000 + i % 1_000, "itemA", 10000, quote).calculatePrice() + service.quoteDiscount(1_000 + i % 1_000, "itemA", 10000);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000_000; i++) {
+            total += service.quote(1_000 + i % 1_000, "itemA", 10000, quote).calculatePrice() + service.quoteDiscount(1_000 + i % 1_000, "itemA", 10000);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        System.out.println("allocated bytes for 2,000,000 quotes = " + allocated + ", total = " + total);
+        assertThat(allocated).isLessThan(64 * 1024L);
+    }
+
+    /**
+     * 회원 1만 명에게 주문 100만 건을 나눠서 create를 한 건씩 부를 때와 createAll로 한 번에 부를 때를 비교한다.
+     */
+    @Test
+    @DisplayName("createAll과 create 반복 비교")
+    void createAllBenchmark() {
+        MemberRepository repository = new ShardedMemberRepository(4);
+        for (long id = 0; id < 10_000; id++) {
+            repository.save(new Member(id, "member" + id, id % 10 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        OrderService service = new OrderServiceImpl(repository, new RateDiscountPolicy());
+        OrderBatch batch = new OrderBatch(1_000_000);
+        for (int i = 0; i < 1_000_000; i++) {
+            batch.add((i * 7919L) % 10_000, "item", 1000 + i % 9000);
+        }
+
+        long perOrderTotal = 0;
+        long perOrderNanos = Long.MAX_VALUE;
+        long batchNanos = Long.MAX_VALUE;
+        OrderBatchResult result = null;
+        // GC에 따라 편차가 커서 5번 돌린 것 중 가장 빠른 값을 비교한다.
+        for (int round = 0; round < 5; round++) {
+            long begin = System.nanoTime();
+            perOrderTotal = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                perOrderTotal += service.create((i * 7919L) % 10_000, "item", 1000 + i % 9000).calculatePrice();
+            }
+            perOrderNanos = Math.min(perOrderNanos, System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            result = service.createAll(batch);
+            batchNanos = Math.min(batchNanos, System.nanoTime() - begin);
+        }
+
+        System.out.println("create x " + batch.size() + " = " + perOrderNanos / 1_000_000 + "ms"
+                + ", createAll = " + batchNanos / 1_000_000 + "ms");
+        assertThat(result.getTotalPrice()).isEqualTo(perOrderTotal);
+    }
+}